@@ -0,0 +1,38 @@
+package com.example.bankcards.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Wraps the application {@link DataSource} in a {@link ConcurrencyLimitingDataSource}
+ * when {@code app.datasource.max-concurrent-connections} is set, as the
+ * {@code virtual-threads} profile does.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Configuration
+@ConditionalOnProperty("app.datasource.max-concurrent-connections")
+public class DataSourceConcurrencyConfig {
+
+    @Bean
+    public static BeanPostProcessor concurrencyLimitingDataSourcePostProcessor(
+            @Value("${app.datasource.max-concurrent-connections}") int maxConcurrentConnections,
+            @Value("${app.datasource.acquire-timeout:60s}") Duration acquireTimeout) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof ConcurrencyLimitingDataSource)) {
+                    return new ConcurrencyLimitingDataSource(dataSource, maxConcurrentConnections, acquireTimeout);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -5,6 +5,7 @@ public class EncryptionConstants {
     public static final String ALGORITHM = "AES";
     public static final String TRANSFORMATION = "AES/ECB/PKCS5Padding";
     public static final int KEY_LENGTH = 16;
+    public static final String HMAC_ALGORITHM = "HmacSHA256";
 
     private EncryptionConstants() {
         // empty
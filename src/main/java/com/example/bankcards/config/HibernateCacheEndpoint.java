@@ -0,0 +1,60 @@
+package com.example.bankcards.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Actuator endpoint at {@code /actuator/hibernatecache} reporting hits, misses,
+ * puts and the hit ratio of every Hibernate second-level cache region.
+ * The numbers come from Hibernate statistics, which cost bookkeeping on every session,
+ * so the endpoint only exists when {@code app.hibernate-cache.statistics} turns them on.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+@ConditionalOnProperty(name = "app.hibernate-cache.statistics", havingValue = "true")
+@Endpoint(id = "hibernatecache")
+public class HibernateCacheEndpoint {
+
+    private final Statistics statistics;
+
+    @Autowired
+    public HibernateCacheEndpoint(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @ReadOperation
+    public Map<String, RegionStats> regions() {
+        Map<String, RegionStats> regions = new TreeMap<>();
+
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region != null) {
+                regions.put(regionName, RegionStats.of(region));
+            }
+        }
+        return regions;
+    }
+
+    public record RegionStats(long hits, long misses, long puts, long elements, double hitRatio) {
+
+        static RegionStats of(CacheRegionStatistics region) {
+            long lookups = region.getHitCount() + region.getMissCount();
+            double hitRatio = lookups == 0 ? 0 : (double) region.getHitCount() / lookups;
+
+            return new RegionStats(region.getHitCount(), region.getMissCount(), region.getPutCount(),
+                    region.getElementCountInMemory(), hitRatio);
+        }
+    }
+}
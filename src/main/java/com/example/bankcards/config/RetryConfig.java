@@ -0,0 +1,81 @@
+package com.example.bankcards.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.retry.RetryCallback;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.RetryListener;
+import org.springframework.retry.annotation.EnableRetry;
+import org.springframework.retry.backoff.ExponentialRandomBackOffPolicy;
+import org.springframework.retry.interceptor.RetryInterceptorBuilder;
+import org.springframework.retry.interceptor.RetryOperationsInterceptor;
+import org.springframework.retry.policy.ExpressionRetryPolicy;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.util.Map;
+
+/**
+ * Enables {@code @Retryable} for operations that may lose a lock or
+ * serialization race against concurrent transactions.
+ * The retry advice wraps the transactional one, so every attempt runs in a fresh transaction.
+ * An operation that joined a caller's transaction is not retried on its own, since that
+ * transaction is already aborted; the caller retries the whole transaction instead.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Configuration
+@EnableRetry
+public class RetryConfig {
+
+    public static final String OPTIMISTIC_LOCK_RETRY_INTERCEPTOR = "optimisticLockRetryInterceptor";
+
+    /**
+     * Retry condition that holds only when the failed attempt ran in its own transaction,
+     * which has been rolled back by the time the condition is checked.
+     */
+    public static final String OUTSIDE_CALLER_TRANSACTION =
+            "!T(org.springframework.transaction.support.TransactionSynchronizationManager).isActualTransactionActive()";
+
+    /**
+     * Retries balance updates that lost an optimistic lock race, using
+     * exponential backoff with random jitter so colliding writers spread out.
+     */
+    @Bean(OPTIMISTIC_LOCK_RETRY_INTERCEPTOR)
+    public RetryOperationsInterceptor optimisticLockRetryInterceptor(
+            MeterRegistry meterRegistry,
+            @Value("${app.optimistic-retry.max-attempts:5}") int maxAttempts,
+            @Value("${app.optimistic-retry.initial-delay:10}") long initialDelay,
+            @Value("${app.optimistic-retry.multiplier:2}") double multiplier,
+            @Value("${app.optimistic-retry.max-delay:100}") long maxDelay) {
+        ExponentialRandomBackOffPolicy backOffPolicy = new ExponentialRandomBackOffPolicy();
+        backOffPolicy.setInitialInterval(initialDelay);
+        backOffPolicy.setMultiplier(multiplier);
+        backOffPolicy.setMaxInterval(maxDelay);
+
+        Counter retryCounter = Counter.builder("bank.balance.optimistic.retries")
+                .description("Balance update attempts that hit a concurrent modification")
+                .register(meterRegistry);
+
+        RetryTemplate retryTemplate = new RetryTemplate();
+        retryTemplate.setRetryPolicy(new ExpressionRetryPolicy(maxAttempts,
+                Map.of(ConcurrencyFailureException.class, true), true, OUTSIDE_CALLER_TRANSACTION, false));
+        retryTemplate.setBackOffPolicy(backOffPolicy);
+        retryTemplate.registerListener(new RetryListener() {
+            @Override
+            public <T, E extends Throwable> void onError(RetryContext context,
+                                                         RetryCallback<T, E> callback,
+                                                         Throwable throwable) {
+                retryCounter.increment();
+            }
+        });
+
+        return RetryInterceptorBuilder.stateless()
+                .retryOperations(retryTemplate)
+                .build();
+    }
+}
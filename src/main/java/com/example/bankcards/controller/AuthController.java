@@ -4,6 +4,7 @@ import com.example.bankcards.dto.JwtResponse;
 import com.example.bankcards.dto.LoginRequest;
 import com.example.bankcards.dto.RegistrationRequest;
 import com.example.bankcards.entity.User;
+import com.example.bankcards.exception.PasswordHashingUnavailableException;
 import com.example.bankcards.security.AuthenticationService;
 import com.example.bankcards.security.RegistrationService;
 import com.example.bankcards.util.UserUtils;
@@ -46,6 +47,8 @@ public class AuthController {
         try {
             User user = registrationService.registerUser(registrationRequest);
             return ResponseEntity.ok(UserUtils.toDTO(user));
+        } catch (PasswordHashingUnavailableException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -62,6 +65,8 @@ public class AuthController {
         try {
             JwtResponse jwtResponse = authenticationService.authenticateUser(loginRequest.getEmail(), loginRequest.getPassword());
             return ResponseEntity.ok(jwtResponse);
+        } catch (PasswordHashingUnavailableException e) {
+            throw e;
         } catch (RuntimeException e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -11,8 +11,8 @@ import com.example.bankcards.util.CardBlockUtils;
 import com.example.bankcards.util.PageableUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -45,16 +45,17 @@ public class CardBlockController {
     }
 
     @GetMapping("/user/{userId}")
-    public Page<CardBlockDTO> getBlockRequestsByUserId(@PathVariable Long userId,
-                                                       @RequestParam(required = false) Long cardId,
-                                                       @RequestParam(required = false) BlockRequestStatus status,
-                                                       @RequestParam(required = false)
-                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                                       @RequestParam(required = false)
-                                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                                       @RequestParam(defaultValue = "0") int page,
-                                                       @RequestParam(defaultValue = "10") int size,
-                                                       @RequestParam(required = false) String[] sort) {
+    public Slice<CardBlockDTO> getBlockRequestsByUserId(@PathVariable Long userId,
+                                                        @RequestParam(required = false) Long cardId,
+                                                        @RequestParam(required = false) BlockRequestStatus status,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                                        @RequestParam(required = false)
+                                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                                        @RequestParam(defaultValue = "0") int page,
+                                                        @RequestParam(defaultValue = "10") int size,
+                                                        @RequestParam(required = false) String[] sort,
+                                                        @RequestParam(defaultValue = "true") boolean withTotal) {
         Long currentUserId = securityService.getCurrentUserId();
 
         if (!securityService.isAdmin() && !currentUserId.equals(userId)) {
@@ -62,31 +63,26 @@ public class CardBlockController {
         }
 
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
-
-        Page<CardBlock> cardBlocks = cardBlockService.getBlockRequestsByUserId(userId, cardId, status, startDate, endDate, pageable);
-
-        return cardBlocks.map(CardBlockUtils::toDTO);
+        return cardBlockService.getBlockRequestsByUserId(userId, cardId, status, startDate, endDate, pageable, withTotal);
     }
 
     @GetMapping
-    public Page<CardBlockDTO> getAllBlockRequests(@RequestParam(required = false) Long userId,
-                                                  @RequestParam(required = false) Long cardId,
-                                                  @RequestParam(required = false) BlockRequestStatus status,
-                                                  @RequestParam(required = false)
-                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                                  @RequestParam(required = false)
-                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                                  @RequestParam(defaultValue = "0") int page,
-                                                  @RequestParam(defaultValue = "10") int size,
-                                                  @RequestParam(required = false) String[] sort) {
+    public Slice<CardBlockDTO> getAllBlockRequests(@RequestParam(required = false) Long userId,
+                                                   @RequestParam(required = false) Long cardId,
+                                                   @RequestParam(required = false) BlockRequestStatus status,
+                                                   @RequestParam(required = false)
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                                   @RequestParam(required = false)
+                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                                   @RequestParam(defaultValue = "0") int page,
+                                                   @RequestParam(defaultValue = "10") int size,
+                                                   @RequestParam(required = false) String[] sort,
+                                                   @RequestParam(defaultValue = "true") boolean withTotal) {
 
         securityService.validateAdminAccess();
 
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
-
-        Page<CardBlock> cardBlocks = cardBlockService.getAllBlockRequests(userId, cardId, status, startDate, endDate, pageable);
-
-        return cardBlocks.map(CardBlockUtils::toDTO);
+        return cardBlockService.getAllBlockRequests(userId, cardId, status, startDate, endDate, pageable, withTotal);
     }
 
     @PostMapping("/{blockId}/approve")
@@ -10,8 +10,8 @@ import com.example.bankcards.util.CardUtils;
 import com.example.bankcards.util.PageableUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -93,20 +93,20 @@ public class CardController {
      * @return page of cards
      */
     @GetMapping
-    public Page<CardDTO> getAllCards(@RequestParam(required = false) Long userId,
-                                     @RequestParam(required = false) CardStatus status,
-                                     @RequestParam(required = false)
-                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                     @RequestParam(required = false)
-                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                     @RequestParam(defaultValue = "0") int page,
-                                     @RequestParam(defaultValue = "10") int size,
-                                     @RequestParam(required = false) String[] sort) {
+    public Slice<CardDTO> getAllCards(@RequestParam(required = false) Long userId,
+                                      @RequestParam(required = false) CardStatus status,
+                                      @RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                      @RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "10") int size,
+                                      @RequestParam(required = false) String[] sort,
+                                      @RequestParam(defaultValue = "true") boolean withTotal) {
         securityService.validateAdminAccess();
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
 
-        Page<Card> cardPage = cardService.getAllCards(userId, status, startDate, endDate, pageable);
-        return cardPage.map(CardUtils::toDTO);
+        return cardService.getAllCards(userId, status, startDate, endDate, pageable, withTotal);
     }
 
     /**
@@ -121,20 +121,20 @@ public class CardController {
      * @return page of user's cards
      */
     @GetMapping("/my-cards")
-    public Page<CardDTO> getUserCards(@RequestParam(required = false) CardStatus status,
-                                      @RequestParam(required = false)
-                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                      @RequestParam(required = false)
-                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                      @RequestParam(defaultValue = "0") int page,
-                                      @RequestParam(defaultValue = "10") int size,
-                                      @RequestParam(required = false) String[] sort) {
+    public Slice<CardDTO> getUserCards(@RequestParam(required = false) CardStatus status,
+                                       @RequestParam(required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                       @RequestParam(required = false)
+                                       @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                       @RequestParam(defaultValue = "0") int page,
+                                       @RequestParam(defaultValue = "10") int size,
+                                       @RequestParam(required = false) String[] sort,
+                                       @RequestParam(defaultValue = "true") boolean withTotal) {
 
         Long currentUserId = securityService.getCurrentUserId();
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
 
-        Page<Card> cards = cardService.getUserCards(currentUserId, status, startDate, endDate, pageable);
-        return cards.map(CardUtils::toDTO);
+        return cardService.getUserCards(currentUserId, status, startDate, endDate, pageable, withTotal);
     }
 
     /**
@@ -157,21 +157,20 @@ public class CardController {
     }
 
     @GetMapping("/{userId}")
-    public Page<CardDTO> getUserCardsByUserId(@PathVariable Long userId,
-                                              @RequestParam(required = false) CardStatus status,
-                                              @RequestParam(required = false)
-                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                              @RequestParam(required = false)
-                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                              @RequestParam(defaultValue = "0") int page,
-                                              @RequestParam(defaultValue = "10") int size,
-                                              @RequestParam(required = false) String[] sort) {
+    public Slice<CardDTO> getUserCardsByUserId(@PathVariable Long userId,
+                                               @RequestParam(required = false) CardStatus status,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "10") int size,
+                                               @RequestParam(required = false) String[] sort,
+                                               @RequestParam(defaultValue = "true") boolean withTotal) {
         securityService.validateAdminAccess();
 
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
-        Page<Card> cardPage = cardService.getUserCardsByUserId(userId, status, startDate, endDate, pageable);
-
-        return cardPage.map(CardUtils::toDTO);
+        return cardService.getUserCardsByUserId(userId, status, startDate, endDate, pageable, withTotal);
     }
 
     /**
@@ -210,6 +209,19 @@ public class CardController {
         return CardUtils.toDTO(cardService.activateCard(id));
     }
 
+    /**
+     * Spreads credits to a hot card over several balance shards (admin only).
+     *
+     * @param id card identifier
+     * @param shards number of shards, 1 turns sharding off
+     * @return updated card data
+     */
+    @PostMapping("/{id}/balance-shards")
+    public CardDTO setBalanceShards(@PathVariable Long id, @RequestParam int shards) {
+        securityService.validateAdminAccess();
+        return CardUtils.toDTO(cardService.setBalanceShards(id, shards));
+    }
+
     /**
      * Deletes a card (admin only).
      *
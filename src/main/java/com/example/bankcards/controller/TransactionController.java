@@ -1,26 +1,30 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransactionDTO;
 import com.example.bankcards.dto.TransactionRequest;
 import com.example.bankcards.entity.TransactionType;
+import com.example.bankcards.service.IdempotencyService;
 import com.example.bankcards.service.SecurityService;
 import com.example.bankcards.service.TransactionService;
 import com.example.bankcards.util.PageableUtils;
 import com.example.bankcards.util.TransactionUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @RestController
 @RequestMapping("/api/transactions")
@@ -28,12 +32,15 @@ public class TransactionController {
 
     private final SecurityService securityService;
     private final TransactionService transactionService;
+    private final IdempotencyService idempotencyService;
 
     @Autowired
     public TransactionController(SecurityService securityService,
-                                 TransactionService transactionService) {
+                                 TransactionService transactionService,
+                                 IdempotencyService idempotencyService) {
         this.securityService = securityService;
         this.transactionService = transactionService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping("/{transactionId}")
@@ -45,26 +52,7 @@ public class TransactionController {
     }
 
     @GetMapping("/my-transactions")
-    public Page<TransactionDTO> getMyTransactions(@RequestParam(required = false) Long cardId,
-                                                  @RequestParam(required = false) TransactionType transactionType,
-                                                  @RequestParam(required = false)
-                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                                  @RequestParam(required = false)
-                                                  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                                  @RequestParam(defaultValue = "0") int page,
-                                                  @RequestParam(defaultValue = "10") int size,
-                                                  @RequestParam(required = false) String[] sort) {
-
-        Long currentUserId = securityService.getCurrentUserId();
-        Pageable pageable = PageableUtils.createPageable(page, size, sort);
-
-        return transactionService.getUserTransactions(currentUserId, cardId, transactionType, startDate, endDate, pageable)
-                .map(TransactionUtils::toDTO);
-    }
-
-    @GetMapping
-    public Page<TransactionDTO> getAllTransactions(@RequestParam(required = false) Long userId,
-                                                   @RequestParam(required = false) Long cardId,
+    public Slice<TransactionDTO> getMyTransactions(@RequestParam(required = false) Long cardId,
                                                    @RequestParam(required = false) TransactionType transactionType,
                                                    @RequestParam(required = false)
                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
@@ -72,26 +60,67 @@ public class TransactionController {
                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
                                                    @RequestParam(defaultValue = "0") int page,
                                                    @RequestParam(defaultValue = "10") int size,
-                                                   @RequestParam(required = false) String[] sort) {
+                                                   @RequestParam(required = false) String[] sort,
+                                                   @RequestParam(defaultValue = "true") boolean withTotal) {
+
+        Long currentUserId = securityService.getCurrentUserId();
+        Pageable pageable = PageableUtils.createPageable(page, size, sort);
+
+        return transactionService.getUserTransactions(currentUserId, cardId, transactionType, startDate, endDate, pageable, withTotal);
+    }
+
+    @GetMapping
+    public Slice<TransactionDTO> getAllTransactions(@RequestParam(required = false) Long userId,
+                                                    @RequestParam(required = false) Long cardId,
+                                                    @RequestParam(required = false) TransactionType transactionType,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                                    @RequestParam(required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                                    @RequestParam(defaultValue = "0") int page,
+                                                    @RequestParam(defaultValue = "10") int size,
+                                                    @RequestParam(required = false) String[] sort,
+                                                    @RequestParam(defaultValue = "true") boolean withTotal) {
 
         securityService.validateAdminAccess();
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
 
-        return transactionService.getAllTransactions(userId, cardId, transactionType, startDate, endDate, pageable)
-                .map(TransactionUtils::toDTO);
+        return transactionService.getAllTransactions(userId, cardId, transactionType, startDate, endDate, pageable, withTotal);
+    }
+
+    @GetMapping("/cursor")
+    public CursorPage<TransactionDTO> getAllTransactionsByCursor(@RequestParam(required = false) Long userId,
+                                                                 @RequestParam(required = false) Long cardId,
+                                                                 @RequestParam(required = false) TransactionType transactionType,
+                                                                 @RequestParam(required = false)
+                                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                                                 @RequestParam(required = false)
+                                                                 @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                                                 @RequestParam(required = false) String cursor,
+                                                                 @RequestParam(defaultValue = "100") int size) {
+
+        securityService.validateAdminAccess();
+
+        return transactionService.getAllTransactionsAfter(userId, cardId, transactionType, startDate, endDate, cursor, size);
     }
 
     @PostMapping("/deposit/{cardId}")
     public TransactionDTO deposit(@PathVariable Long cardId,
-                                  @RequestBody @Valid TransactionRequest request) {
+                                  @RequestBody @Valid TransactionRequest request,
+                                  @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                  String idempotencyKey) {
         securityService.validateAdminAccess();
-        return TransactionUtils.toDTO(transactionService.deposit(cardId, request.getAmount()));
+        return idempotencyService.execute(idempotencyKey, "deposit", List.of(cardId, request), TransactionDTO.class,
+                () -> TransactionUtils.toDTO(transactionService.deposit(cardId, request.getAmount())));
     }
 
     @PostMapping("/withdraw/{cardId}")
     public TransactionDTO withdraw(@PathVariable Long cardId,
-                                   @RequestBody @Valid TransactionRequest request) {
+                                   @RequestBody @Valid TransactionRequest request,
+                                   @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                   String idempotencyKey) {
         securityService.validateAdminAccess();
-        return TransactionUtils.toDTO(transactionService.withdraw(cardId, request.getAmount()));
+        return idempotencyService.execute(idempotencyKey, "withdraw", List.of(cardId, request), TransactionDTO.class,
+                () -> TransactionUtils.toDTO(transactionService.withdraw(cardId, request.getAmount())));
     }
 }
\ No newline at end of file
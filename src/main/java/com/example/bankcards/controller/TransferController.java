@@ -1,28 +1,35 @@
 package com.example.bankcards.controller;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.CursorPage;
 import com.example.bankcards.dto.TransferDTO;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.TransferStatus;
 import com.example.bankcards.exception.BankSecurityException;
+import com.example.bankcards.service.IdempotencyService;
 import com.example.bankcards.service.SecurityService;
 import com.example.bankcards.service.TransferService;
 import com.example.bankcards.util.PageableUtils;
 import com.example.bankcards.util.TransferUtils;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
 
 @RestController
 @RequestMapping("/api/transfers")
@@ -30,11 +37,15 @@ public class TransferController {
 
     private final SecurityService securityService;
     private final TransferService transferService;
+    private final IdempotencyService idempotencyService;
 
     @Autowired
-    public TransferController(SecurityService securityService, TransferService transferService) {
+    public TransferController(SecurityService securityService,
+                              TransferService transferService,
+                              IdempotencyService idempotencyService) {
         this.securityService = securityService;
         this.transferService = transferService;
+        this.idempotencyService = idempotencyService;
     }
 
     @GetMapping("/{transferId}")
@@ -44,16 +55,17 @@ public class TransferController {
     }
 
     @GetMapping("/user/{userId}")
-    public Page<TransferDTO> getUserTransfers(@PathVariable Long userId,
-                                              @RequestParam(required = false) Long cardId,
-                                              @RequestParam(required = false) TransferStatus status,
-                                              @RequestParam(required = false)
-                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                              @RequestParam(required = false)
-                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                              @RequestParam(defaultValue = "0") int page,
-                                              @RequestParam(defaultValue = "20") int size,
-                                              @RequestParam(required = false) String[] sort) {
+    public Slice<TransferDTO> getUserTransfers(@PathVariable Long userId,
+                                               @RequestParam(required = false) Long cardId,
+                                               @RequestParam(required = false) TransferStatus status,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                               @RequestParam(required = false)
+                                               @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                               @RequestParam(defaultValue = "0") int page,
+                                               @RequestParam(defaultValue = "20") int size,
+                                               @RequestParam(required = false) String[] sort,
+                                               @RequestParam(defaultValue = "true") boolean withTotal) {
         Long currentUserId = securityService.getCurrentUserId();
         if (!securityService.isAdmin() && !currentUserId.equals(userId)) {
             throw new BankSecurityException("Can only view own transfers");
@@ -61,37 +73,68 @@ public class TransferController {
 
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
 
-        return transferService.getTransfersByUserId(userId, cardId, status, startDate, endDate, pageable)
-                .map(TransferUtils::toDTO);
+        return transferService.getTransfersByUserId(userId, cardId, status, startDate, endDate, pageable, withTotal);
     }
 
     @GetMapping
-    public Page<TransferDTO> getAllTransfers(@RequestParam(required = false) Long userId,
-                                             @RequestParam(required = false) Long cardId,
-                                             @RequestParam(required = false) TransferStatus status,
-                                             @RequestParam(required = false)
-                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                             @RequestParam(required = false)
-                                             @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                             @RequestParam(required = false) BigDecimal minAmount,
-                                             @RequestParam(required = false) BigDecimal maxAmount,
-                                             @RequestParam(defaultValue = "0") int page,
-                                             @RequestParam(defaultValue = "10") int size,
-                                             @RequestParam(required = false) String[] sort) {
+    public Slice<TransferDTO> getAllTransfers(@RequestParam(required = false) Long userId,
+                                              @RequestParam(required = false) Long cardId,
+                                              @RequestParam(required = false) TransferStatus status,
+                                              @RequestParam(required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                              @RequestParam(required = false)
+                                              @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                              @RequestParam(required = false) BigDecimal minAmount,
+                                              @RequestParam(required = false) BigDecimal maxAmount,
+                                              @RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "10") int size,
+                                              @RequestParam(required = false) String[] sort,
+                                              @RequestParam(defaultValue = "true") boolean withTotal) {
 
         securityService.validateAdminAccess();
 
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
 
-        return transferService.getAllTransfers(userId, cardId, status, startDate, endDate, minAmount, maxAmount, pageable)
-                .map(TransferUtils::toDTO);
+        return transferService.getAllTransfers(userId, cardId, status, startDate, endDate, minAmount, maxAmount, pageable, withTotal);
+    }
+
+    @GetMapping("/cursor")
+    public CursorPage<TransferDTO> getAllTransfersByCursor(@RequestParam(required = false) Long userId,
+                                                           @RequestParam(required = false) Long cardId,
+                                                           @RequestParam(required = false) TransferStatus status,
+                                                           @RequestParam(required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                                           @RequestParam(required = false)
+                                                           @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                                           @RequestParam(required = false) BigDecimal minAmount,
+                                                           @RequestParam(required = false) BigDecimal maxAmount,
+                                                           @RequestParam(required = false) String cursor,
+                                                           @RequestParam(defaultValue = "100") int size) {
+
+        securityService.validateAdminAccess();
+
+        return transferService.getAllTransfersAfter(userId, cardId, status, startDate, endDate, minAmount, maxAmount, cursor, size);
     }
 
     @PostMapping
-    public TransferDTO createTransfer(@RequestBody @Valid TransferRequest request) {
-        securityService.validateCardOwnership(request.getFromCardId());
-        securityService.validateCardOwnership(request.getToCardId());
+    public TransferDTO createTransfer(@RequestBody @Valid TransferRequest request,
+                                      @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                      String idempotencyKey) {
+        securityService.validateCardsOwnership(List.of(request.getFromCardId(), request.getToCardId()));
+
+        return idempotencyService.execute(idempotencyKey, "transfer", request, TransferDTO.class,
+                () -> transferService.createTransfer(request));
+    }
+
+    @PostMapping("/batch")
+    public BatchTransferResponse createTransfers(@RequestBody @Valid BatchTransferRequest request,
+                                                 @RequestHeader(value = IdempotencyService.HEADER, required = false)
+                                                 String idempotencyKey) {
+        securityService.validateCardsOwnership(request.getTransfers().stream()
+                .flatMap(transfer -> Stream.of(transfer.getFromCardId(), transfer.getToCardId()))
+                .toList());
 
-        return TransferUtils.toDTO(transferService.createTransfer(request));
+        return idempotencyService.execute(idempotencyKey, "transfer-batch", request, BatchTransferResponse.class,
+                () -> transferService.createTransfers(request));
     }
 }
\ No newline at end of file
@@ -12,8 +12,8 @@ import com.example.bankcards.util.UserUtils;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
@@ -84,25 +84,25 @@ public class UserController {
      * @param page page number
      * @param size page size
      * @param sort sorting parameters
+     * @param withTotal whether to count all users; without it a slice is returned and no count query runs
      * @return page of users
      */
     @GetMapping
-    public Page<UserDTO> getAllUsers(@RequestParam(required = false) String email,
-                                     @RequestParam(required = false) Role role,
-                                     @RequestParam(required = false)
-                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
-                                     @RequestParam(required = false)
-                                     @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
-                                     @RequestParam(defaultValue = "0") int page,
-                                     @RequestParam(defaultValue = "10") int size,
-                                     @RequestParam(required = false) String[] sort) {
+    public Slice<UserDTO> getAllUsers(@RequestParam(required = false) String email,
+                                      @RequestParam(required = false) Role role,
+                                      @RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+                                      @RequestParam(required = false)
+                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(defaultValue = "10") int size,
+                                      @RequestParam(required = false) String[] sort,
+                                      @RequestParam(defaultValue = "true") boolean withTotal) {
 
         securityService.validateAdminAccess();
         Pageable pageable = PageableUtils.createPageable(page, size, sort);
 
-        Page<User> users = userService.getAllUsers(email, role, startDate, endDate, pageable);
-
-        return users.map(UserUtils::toDTO);
+        return userService.getAllUsers(email, role, startDate, endDate, pageable, withTotal);
     }
 
     /**
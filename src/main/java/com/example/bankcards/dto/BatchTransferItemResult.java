@@ -0,0 +1,22 @@
+package com.example.bankcards.dto;
+
+import com.example.bankcards.entity.TransferStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferItemResult {
+
+    private int index;
+    private Long transferId;
+    private Long fromCardId;
+    private Long toCardId;
+    private BigDecimal amount;
+    private TransferStatus status;
+    private String error;
+}
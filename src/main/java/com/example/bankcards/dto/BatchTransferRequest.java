@@ -0,0 +1,28 @@
+package com.example.bankcards.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+
+    public static final int MAX_TRANSFERS = 1000;
+
+    @NotEmpty
+    @Size(max = MAX_TRANSFERS)
+    private List<@Valid TransferRequest> transfers;
+
+    /**
+     * When true, the whole batch is rejected if any transfer fails.
+     * When false, valid transfers are applied and failed ones are reported per item.
+     */
+    private boolean atomic = true;
+}
@@ -2,7 +2,6 @@ package com.example.bankcards.entity;
 
 import com.example.bankcards.util.CardNumberEncryptor;
 import jakarta.persistence.Column;
-import jakarta.persistence.Convert;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
@@ -15,6 +14,8 @@ import jakarta.persistence.ManyToOne;
 import jakarta.persistence.PrePersist;
 import jakarta.persistence.PreUpdate;
 import jakarta.persistence.Table;
+import jakarta.persistence.Transient;
+import jakarta.persistence.Version;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotNull;
@@ -32,7 +33,7 @@ import java.time.LocalDateTime;
 /**
  * Entity representing a bank card.
  * Contains card information including encrypted card number, balance, and status.
- * Supports automatic timestamp management and card number encryption.
+ * The last four digits are stored separately so masked numbers can be shown without decryption.
  *
  * @author Bank System Team
  * @since 1.0.0
@@ -55,10 +56,19 @@ public class Card {
     @JoinColumn(name = "user_id", nullable = false)
     private User user;
 
-    @Convert(converter = CardNumberEncryptor.class)
-    @Size(min = 16, max = 19)
+    /**
+     * Card number as AES ciphertext. It is not decrypted on load; use
+     * {@link CardNumberEncryptor#decrypt(String)} where the full number is really needed.
+     */
     @Column(name = "card_number", nullable = false, unique = true)
-    private String cardNumber;
+    private String encryptedCardNumber;
+
+    @Size(min = 4, max = 4)
+    @Column(name = "card_last4", length = 4)
+    private String cardLast4;
+
+    @Column(name = "card_number_hash", unique = true, length = 64)
+    private String cardNumberHash;
 
     @Future
     @Column(name = "expiry_date", nullable = false)
@@ -72,12 +82,44 @@ public class Card {
     @Column(nullable = false)
     private CardStatus status = CardStatus.ACTIVE;
 
+    /**
+     * Number of sub-balance rows that receive credits for a hot card; 1 disables sharding.
+     * {@link #balance} holds the consolidated part and the shards hold credits not yet consolidated.
+     */
+    @Column(name = "balance_shards", nullable = false)
+    private int balanceShards = 1;
+
+    /**
+     * Credits held in balance shards. Not a column: it is only filled in by the card service
+     * for sharded cards, so loading a card never queries the shard table.
+     */
+    @Transient
+    private BigDecimal shardedBalance;
+
+    /**
+     * Optimistic lock version. Left null on new cards so Spring Data treats them as new.
+     */
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    public boolean isSharded() {
+        return balanceShards > 1;
+    }
+
+    /**
+     * Returns the full card balance, including credits held in balance shards once they are filled in.
+     */
+    public BigDecimal getTotalBalance() {
+        return shardedBalance == null ? balance : balance.add(shardedBalance);
+    }
+
     /**
      * Sets creation and update timestamps before persisting.
      */
@@ -0,0 +1,51 @@
+package com.example.bankcards.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.IdClass;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+
+/**
+ * Read-only view of a balance shard row of a sharded card.
+ * Shards are written with plain SQL by {@code CardBalanceShards}; the entity only
+ * exists so criteria queries can sum shard balances in a subquery.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Entity
+@Immutable
+@Table(name = "card_balance_shards")
+@IdClass(CardBalanceShard.Key.class)
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CardBalanceShard {
+
+    @Id
+    @Column(name = "card_id")
+    private Long cardId;
+
+    @Id
+    @Column(name = "shard_no")
+    private Integer shardNo;
+
+    @Column(nullable = false, precision = 20, scale = 2)
+    private BigDecimal balance;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private Long cardId;
+        private Integer shardNo;
+    }
+}
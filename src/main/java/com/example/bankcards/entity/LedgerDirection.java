@@ -0,0 +1,10 @@
+package com.example.bankcards.entity;
+
+/**
+ * Side of a ledger entry. A credit increases a card balance, a debit decreases it.
+ */
+public enum LedgerDirection {
+
+    DEBIT,
+    CREDIT
+}
@@ -0,0 +1,12 @@
+package com.example.bankcards.entity;
+
+/**
+ * Kind of money movement a ledger entry belongs to.
+ */
+public enum LedgerReferenceType {
+
+    OPENING,
+    TRANSFER,
+    DEPOSIT,
+    WITHDRAW
+}
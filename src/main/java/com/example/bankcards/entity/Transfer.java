@@ -50,6 +50,12 @@ public class Transfer {
     @JoinColumn(name = "to_card_id", nullable = false)
     private Card toCard;
 
+    @Column(name = "from_user_id", nullable = false)
+    private Long fromUserId;
+
+    @Column(name = "to_user_id", nullable = false)
+    private Long toUserId;
+
     @Column(nullable = false, precision = 20, scale = 2)
     private BigDecimal amount;
 
@@ -62,6 +68,8 @@ public class Transfer {
 
     /**
      * Constructor for creating a transfer with automatic timestamp.
+     * The owners of both cards are copied onto the transfer so that
+     * per-user lookups can use the transfer indexes without joining cards.
      *
      * @param fromCard source card
      * @param toCard destination card
@@ -69,8 +77,25 @@ public class Transfer {
      * @param status transfer status
      */
     public Transfer(Card fromCard, Card toCard, BigDecimal amount, TransferStatus status) {
+        this(fromCard, toCard, fromCard.getUser().getId(), toCard.getUser().getId(), amount, status);
+    }
+
+    /**
+     * Constructor for callers that already know the card owners,
+     * so card references do not have to be initialized.
+     *
+     * @param fromCard source card
+     * @param toCard destination card
+     * @param fromUserId owner of the source card
+     * @param toUserId owner of the destination card
+     * @param amount transfer amount
+     * @param status transfer status
+     */
+    public Transfer(Card fromCard, Card toCard, Long fromUserId, Long toUserId, BigDecimal amount, TransferStatus status) {
         this.fromCard = fromCard;
         this.toCard = toCard;
+        this.fromUserId = fromUserId;
+        this.toUserId = toUserId;
         this.amount = amount;
         this.status = status;
         this.createdAt = LocalDateTime.now();
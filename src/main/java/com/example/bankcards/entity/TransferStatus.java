@@ -3,5 +3,6 @@ package com.example.bankcards.entity;
 public enum TransferStatus {
 
     PENDING,
-    COMPLETED
+    COMPLETED,
+    FAILED
 }
\ No newline at end of file
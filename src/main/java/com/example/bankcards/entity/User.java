@@ -1,5 +1,6 @@
 package com.example.bankcards.entity;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -18,6 +19,8 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import lombok.NoArgsConstructor;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 import java.time.LocalDateTime;
 
@@ -25,12 +28,16 @@ import java.time.LocalDateTime;
  * Entity representing a system user.
  * Contains user personal information, credentials, and role.
  * Supports automatic timestamp management for creation and updates.
+ * Kept in the "users" second-level cache region, since users are read on
+ * almost every request and rarely change.
  *
  * @author Bank System Team
  * @since 1.0.0
  */
 @Entity
 @Table(name = "users")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "users")
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
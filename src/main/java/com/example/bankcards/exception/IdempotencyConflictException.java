@@ -0,0 +1,8 @@
+package com.example.bankcards.exception;
+
+public class IdempotencyConflictException extends BankCardsException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
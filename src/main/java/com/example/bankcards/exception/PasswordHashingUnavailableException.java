@@ -0,0 +1,8 @@
+package com.example.bankcards.exception;
+
+public class PasswordHashingUnavailableException extends BankCardsException {
+
+    public PasswordHashingUnavailableException(String message) {
+        super(message);
+    }
+}
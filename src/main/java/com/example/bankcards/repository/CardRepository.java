@@ -4,11 +4,15 @@ import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.Query;
@@ -23,10 +27,34 @@ public interface CardRepository extends JpaRepository<Card, Long>, JpaSpecificat
 
     Page<Card> findByUserIdAndStatus(Long userId, CardStatus status, Pageable pageable);
 
-    Optional<Card> findByCardNumber(String cardNumber);
+    Optional<Card> findByEncryptedCardNumber(String encryptedCardNumber);
 
-    boolean existsByCardNumber(String cardNumber);
+    boolean existsByEncryptedCardNumber(String encryptedCardNumber);
 
-    @Query("SELECT SUM(c.balance) FROM Card c WHERE c.user.id = :userId")
+    @Query("SELECT c.user.id FROM Card c WHERE c.id = :id")
+    Optional<Long> findOwnerIdById(@Param("id") Long id);
+
+    /**
+     * Loads the owner id of every existing card among the given ids, one element per card found.
+     */
+    @Query("SELECT c.user.id FROM Card c WHERE c.id IN :ids")
+    List<Long> findOwnerIdsByIdIn(@Param("ids") Collection<Long> ids);
+
+    Optional<Card> findByCardNumberHash(String cardNumberHash);
+
+    boolean existsByCardNumberHash(String cardNumberHash);
+
+    @Query("SELECT c FROM Card c WHERE c.id > :id AND (c.cardNumberHash IS NULL OR c.cardLast4 IS NULL)")
+    Slice<Card> findMissingCardNumberColumnsAfter(@Param("id") Long id, Pageable pageable);
+
+    boolean existsByCardNumberHashIsNull();
+
+    @Modifying
+    @Query("UPDATE Card c SET c.cardNumberHash = :hash, c.cardLast4 = :last4 WHERE c.id = :id")
+    int updateCardNumberColumns(@Param("id") Long id, @Param("hash") String hash, @Param("last4") String last4);
+
+    @Query(value = "SELECT SUM(c.balance) + COALESCE((SELECT SUM(s.balance) FROM card_balance_shards s " +
+            "JOIN cards sc ON sc.id = s.card_id WHERE sc.user_id = :userId), 0) " +
+            "FROM cards c WHERE c.user_id = :userId", nativeQuery = true)
     Optional<BigDecimal> sumBalanceByUserId(@Param("userId") Long userId);
-}
\ No newline at end of file
+}
@@ -0,0 +1,42 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.entity.IdempotencyStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Repository
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKey, Long> {
+
+    Optional<IdempotencyKey> findByUserIdAndKey(Long userId, String key);
+
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.status = :status, k.responseBody = :responseBody WHERE k.id = :id")
+    int complete(@Param("id") Long id,
+                 @Param("status") IdempotencyStatus status,
+                 @Param("responseBody") String responseBody);
+
+    /**
+     * Restarts a claim that is still in progress and older than the given time.
+     *
+     * @return 1 if the claim was taken over, 0 if it completed or was taken over by another request
+     */
+    @Modifying
+    @Query("UPDATE IdempotencyKey k SET k.requestHash = :requestHash, k.createdAt = :claimedAt " +
+            "WHERE k.id = :id AND k.status = com.example.bankcards.entity.IdempotencyStatus.IN_PROGRESS " +
+            "AND k.createdAt < :staleBefore")
+    int reclaim(@Param("id") Long id,
+                @Param("requestHash") String requestHash,
+                @Param("claimedAt") LocalDateTime claimedAt,
+                @Param("staleBefore") LocalDateTime staleBefore);
+
+    @Modifying
+    @Query("DELETE FROM IdempotencyKey k WHERE k.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") LocalDateTime before);
+}
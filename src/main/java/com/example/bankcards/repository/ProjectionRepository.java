@@ -0,0 +1,198 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.util.CursorUtils;
+import com.example.bankcards.util.DtoProjection;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.TypedQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Runs specification queries that select DTO columns instead of entities.
+ * Results never enter the persistence context, so large read-only pages avoid entity
+ * instantiation and dirty checking.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Repository
+public class ProjectionRepository {
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public ProjectionRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Finds a page of DTOs matching the specification.
+     * Follows the same paging and count semantics as {@code JpaSpecificationExecutor.findAll}.
+     *
+     * @param domainClass root entity type
+     * @param spec filter, may be null
+     * @param pageable pagination and sorting
+     * @param projection selected columns and their mapping
+     * @return page of DTOs
+     */
+    public <T, D> Page<D> findAll(Class<T> domainClass,
+                                  @Nullable Specification<T> spec,
+                                  Pageable pageable,
+                                  DtoProjection<T, D> projection) {
+        List<D> content = pageable.isPaged()
+                ? select(domainClass, spec, pageable.getSort(), (int) pageable.getOffset(), pageable.getPageSize(), projection)
+                : select(domainClass, spec, pageable.getSort(), 0, null, projection);
+
+        return PageableExecutionUtils.getPage(content, pageable, () -> count(domainClass, spec));
+    }
+
+    /**
+     * Finds a page of DTOs, or only a slice of them when the total is not needed.
+     * A slice fetches one extra row to tell whether another page follows and skips the count query.
+     *
+     * @param domainClass root entity type
+     * @param spec filter, may be null
+     * @param pageable pagination and sorting
+     * @param withTotal whether to count all matching rows
+     * @param projection selected columns and their mapping
+     * @return a {@link Page} if {@code withTotal} is set or the request is unpaged, otherwise a {@link Slice}
+     */
+    public <T, D> Slice<D> findAll(Class<T> domainClass,
+                                   @Nullable Specification<T> spec,
+                                   Pageable pageable,
+                                   boolean withTotal,
+                                   DtoProjection<T, D> projection) {
+        if (withTotal || pageable.isUnpaged()) {
+            return findAll(domainClass, spec, pageable, projection);
+        }
+
+        List<D> rows = select(domainClass, spec, pageable.getSort(), (int) pageable.getOffset(),
+                pageable.getPageSize() + 1, projection);
+        boolean hasNext = rows.size() > pageable.getPageSize();
+
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    /**
+     * Finds the next rows after a keyset position, ordered by {@code (createdAt, id)}.
+     * No count query is run; one extra row is fetched to tell whether another page follows.
+     * The entity must have {@code createdAt} and {@code id} attributes.
+     *
+     * @param domainClass root entity type
+     * @param spec filter, may be null
+     * @param after position of the last row already returned, null for the first page
+     * @param size maximum number of rows
+     * @param projection selected columns and their mapping
+     * @param positionOf extracts the keyset position of a DTO
+     * @return rows and the cursor of the next page
+     */
+    public <T, D> CursorPage<D> findAfter(Class<T> domainClass,
+                                          @Nullable Specification<T> spec,
+                                          @Nullable CursorUtils.Position after,
+                                          int size,
+                                          DtoProjection<T, D> projection,
+                                          Function<D, CursorUtils.Position> positionOf) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+        Path<LocalDateTime> createdAt = root.get("createdAt");
+        Path<Long> id = root.get("id");
+
+        query.multiselect(projection.select(root, query, cb));
+        Predicate predicate = toPredicate(spec, root, query, cb);
+        if (after != null) {
+            // The leading range on created_at alone lets the created_at index drive the scan.
+            Predicate afterPosition = cb.and(
+                    cb.greaterThanOrEqualTo(createdAt, after.createdAt()),
+                    cb.or(cb.greaterThan(createdAt, after.createdAt()), cb.greaterThan(id, after.id())));
+            predicate = predicate == null ? afterPosition : cb.and(predicate, afterPosition);
+        }
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(cb.asc(createdAt), cb.asc(id));
+
+        List<D> rows = entityManager.createQuery(query)
+                .setMaxResults(size + 1)
+                .getResultList().stream()
+                .map(projection::map)
+                .toList();
+
+        if (rows.size() <= size) {
+            return new CursorPage<>(rows, null);
+        }
+        List<D> content = rows.subList(0, size);
+        return new CursorPage<>(content, CursorUtils.encode(positionOf.apply(content.get(size - 1))));
+    }
+
+    private <T, D> List<D> select(Class<T> domainClass,
+                                  @Nullable Specification<T> spec,
+                                  Sort sort,
+                                  int offset,
+                                  @Nullable Integer limit,
+                                  DtoProjection<T, D> projection) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<T> root = query.from(domainClass);
+
+        query.multiselect(projection.select(root, query, cb));
+        Predicate predicate = toPredicate(spec, root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, cb));
+        }
+
+        TypedQuery<Tuple> typedQuery = entityManager.createQuery(query).setFirstResult(offset);
+        if (limit != null) {
+            typedQuery.setMaxResults(limit);
+        }
+
+        return typedQuery.getResultList().stream()
+                .map(projection::map)
+                .toList();
+    }
+
+    private <T> long count(Class<T> domainClass, @Nullable Specification<T> spec) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<T> root = query.from(domainClass);
+
+        Predicate predicate = toPredicate(spec, root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    @Nullable
+    private static <T> Predicate toPredicate(@Nullable Specification<T> spec,
+                                             Root<T> root,
+                                             CriteriaQuery<?> query,
+                                             CriteriaBuilder cb) {
+        return spec == null ? null : spec.toPredicate(root, query, cb);
+    }
+}
@@ -0,0 +1,183 @@
+package com.example.bankcards.repository;
+
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.util.MaskUtils;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Query;
+import org.hibernate.query.NativeQuery;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Lists the transfers a user sent or received, newest or oldest first.
+ * A single {@code from_user_id = ? OR to_user_id = ?} filter can only be answered with a
+ * BitmapOr over both owner indexes followed by a sort of every matching row. This query
+ * reads the sent and the received transfers as two {@code UNION ALL} branches instead,
+ * each walking its {@code (user_id, created_at)} index in order and stopping after the
+ * rows the page can need, so only those rows are merged and sorted.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Repository
+public class UserTransferRepository {
+
+    private static final String CREATED_AT = "createdAt";
+
+    private final EntityManager entityManager;
+
+    @Autowired
+    public UserTransferRepository(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Tells whether the request can be served by this repository: it must be paged and
+     * sorted by {@code createdAt} alone, or not sorted at all.
+     *
+     * @param pageable pagination and sorting
+     * @return true if {@link #findByUserId} supports the request
+     */
+    public static boolean supports(Pageable pageable) {
+        if (pageable.isUnpaged()) {
+            return false;
+        }
+        List<Sort.Order> orders = pageable.getSort().toList();
+        return orders.isEmpty() || (orders.size() == 1 && CREATED_AT.equals(orders.get(0).getProperty()));
+    }
+
+    /**
+     * Finds a page of the user's transfers, or only a slice of them when the total is not needed.
+     * Transfers are ordered by creation time and ID, newest first unless the request asks for
+     * {@code createdAt} ascending.
+     *
+     * @param userId sender or recipient
+     * @param cardId source or destination card, may be null
+     * @param status transfer status, may be null
+     * @param start lower bound of the creation time, may be null
+     * @param end upper bound of the creation time, may be null
+     * @param pageable pagination, see {@link #supports(Pageable)}
+     * @param withTotal whether to count all matching rows
+     * @return a page if {@code withTotal} is set, otherwise a slice
+     */
+    public Slice<TransferDTO> findByUserId(Long userId,
+                                           @Nullable Long cardId,
+                                           @Nullable TransferStatus status,
+                                           @Nullable LocalDateTime start,
+                                           @Nullable LocalDateTime end,
+                                           Pageable pageable,
+                                           boolean withTotal) {
+        if (start != null && end != null && start.isAfter(end)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("userId", userId);
+        String filters = filters(cardId, status, start, end, parameters);
+
+        int offset = (int) pageable.getOffset();
+        int limit = withTotal ? pageable.getPageSize() : pageable.getPageSize() + 1;
+        List<TransferDTO> rows = select(filters, parameters, direction(pageable), offset, limit);
+
+        if (withTotal) {
+            return PageableExecutionUtils.getPage(rows, pageable, () -> count(filters, parameters));
+        }
+
+        boolean hasNext = rows.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? rows.subList(0, pageable.getPageSize()) : rows, pageable, hasNext);
+    }
+
+    private List<TransferDTO> select(String filters, Map<String, Object> parameters, String direction, int offset, int limit) {
+        String order = " ORDER BY created_at " + direction + ", id " + direction + " LIMIT :branchLimit";
+        // Self-transfers match both owner columns and are only read by the first branch.
+        String sql = "SELECT t.id, fc.card_last4 AS from_last4, tc.card_last4 AS to_last4, " +
+                "t.amount, t.status, t.created_at FROM (" +
+                "(SELECT id, created_at FROM transfers WHERE from_user_id = :userId" + filters + order + ") " +
+                "UNION ALL " +
+                "(SELECT id, created_at FROM transfers WHERE to_user_id = :userId AND from_user_id <> :userId" +
+                filters + order + ")" +
+                ") page " +
+                "JOIN transfers t ON t.id = page.id " +
+                "JOIN cards fc ON fc.id = t.from_card_id " +
+                "JOIN cards tc ON tc.id = t.to_card_id " +
+                "ORDER BY page.created_at " + direction + ", page.id " + direction + " " +
+                "LIMIT :pageLimit OFFSET :pageOffset";
+
+        Query query = entityManager.createNativeQuery(sql);
+        parameters.forEach(query::setParameter);
+        query.setParameter("branchLimit", offset + limit);
+        query.setParameter("pageLimit", limit);
+        query.setParameter("pageOffset", offset);
+
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = query.unwrap(NativeQuery.class)
+                .addScalar("id", Long.class)
+                .addScalar("from_last4", String.class)
+                .addScalar("to_last4", String.class)
+                .addScalar("amount", BigDecimal.class)
+                .addScalar("status", String.class)
+                .addScalar("created_at", LocalDateTime.class)
+                .getResultList();
+
+        return rows.stream()
+                .map(row -> new TransferDTO(
+                        (Long) row[0],
+                        MaskUtils.maskLastFour((String) row[1]),
+                        MaskUtils.maskLastFour((String) row[2]),
+                        (BigDecimal) row[3],
+                        TransferStatus.valueOf((String) row[4]),
+                        (LocalDateTime) row[5]))
+                .toList();
+    }
+
+    private long count(String filters, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery(
+                "SELECT count(*) FROM transfers WHERE (from_user_id = :userId OR to_user_id = :userId)" + filters);
+        parameters.forEach(query::setParameter);
+
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    private static String filters(@Nullable Long cardId,
+                                  @Nullable TransferStatus status,
+                                  @Nullable LocalDateTime start,
+                                  @Nullable LocalDateTime end,
+                                  Map<String, Object> parameters) {
+        StringBuilder filters = new StringBuilder();
+        if (cardId != null) {
+            filters.append(" AND (from_card_id = :cardId OR to_card_id = :cardId)");
+            parameters.put("cardId", cardId);
+        }
+        if (status != null) {
+            filters.append(" AND status = :status");
+            parameters.put("status", status.name());
+        }
+        if (start != null) {
+            filters.append(" AND created_at >= :start");
+            parameters.put("start", start);
+        }
+        if (end != null) {
+            filters.append(" AND created_at <= :end");
+            parameters.put("end", end);
+        }
+        return filters.toString();
+    }
+
+    private static String direction(Pageable pageable) {
+        Sort.Order order = pageable.getSort().getOrderFor(CREATED_AT);
+        return order != null && order.isAscending() ? "ASC" : "DESC";
+    }
+}
@@ -0,0 +1,75 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CacheInvalidationBus;
+import com.example.bankcards.util.CacheUtils;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Short-lived cache of the current role of each user id, empty for deleted users.
+ * Lets the JWT filter trust token claims while still rejecting tokens of deleted users
+ * and taking authorities from the current role rather than the one in the token,
+ * at the cost of at most one lookup per user per TTL instead of one per request.
+ * Entries are evicted on every node when a user is changed or deleted.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+public class ActiveUserCache {
+
+    private final UserRepository userRepository;
+    private final AsyncCache<Long, Optional<Role>> activeUsers;
+
+    @Autowired
+    public ActiveUserCache(UserRepository userRepository,
+                           CacheInvalidationBus cacheInvalidationBus,
+                           @Value("${app.jwt.active-user-cache.size:10000}") long cacheSize,
+                           @Value("${app.jwt.active-user-cache.ttl:30s}") Duration cacheTtl) {
+        this.userRepository = userRepository;
+        this.activeUsers = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .buildAsync();
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.USERS, new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void evict(Set<Long> keys) {
+                activeUsers.synchronous().invalidateAll(keys);
+            }
+
+            @Override
+            public void evictAll() {
+                activeUsers.synchronous().invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Checks whether the user still exists, hitting the database only on a cache miss.
+     *
+     * @param userId user id from a verified token
+     * @return true if the user exists
+     */
+    public boolean isActive(Long userId) {
+        return currentRole(userId).isPresent();
+    }
+
+    /**
+     * Gets the role the user has now, hitting the database only on a cache miss.
+     *
+     * @param userId user id from a verified token
+     * @return current role, empty if the user no longer exists
+     */
+    public Optional<Role> currentRole(Long userId) {
+        return CacheUtils.getOrLoad(activeUsers, userId, userRepository::findRoleById);
+    }
+}
@@ -1,19 +1,12 @@
 package com.example.bankcards.security;
 
-import com.example.bankcards.exception.NotFoundException;
-import com.example.bankcards.entity.User;
 import com.example.bankcards.dto.JwtResponse;
-import com.example.bankcards.repository.UserRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.GrantedAuthority;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 
-import java.util.List;
-
 /**
  * Service for user authentication operations.
  * Handles user login and JWT token generation.
@@ -26,15 +19,12 @@ public class AuthenticationService {
 
     private final AuthenticationManager authenticationManager;
     private final JwtService jwtService;
-    private final UserRepository userRepository;
 
     @Autowired
     public AuthenticationService(AuthenticationManager authenticationManager,
-                                 JwtService jwtService,
-                                 UserRepository userRepository) {
+                                 JwtService jwtService) {
         this.authenticationManager = authenticationManager;
         this.jwtService = jwtService;
-        this.userRepository = userRepository;
     }
 
     /**
@@ -44,23 +34,16 @@ public class AuthenticationService {
      * @param password user password
      * @return JWT response with token and user information
      * @throws org.springframework.security.core.AuthenticationException if authentication fails
-     * @throws NotFoundException if user not found
      */
     public JwtResponse authenticateUser(String email, String password) {
         Authentication authentication = authenticationManager
                 .authenticate(new UsernamePasswordAuthenticationToken(email, password));
 
         org.springframework.security.core.context.SecurityContextHolder.getContext().setAuthentication(authentication);
-        String jwt = jwtService.generateToken((UserDetails) authentication.getPrincipal());
-
-        UserDetails userDetails = (UserDetails) authentication.getPrincipal();
-        List<String> roles = userDetails.getAuthorities().stream()
-                .map(GrantedAuthority::getAuthority)
-                .toList();
 
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new NotFoundException("User not found with email: " + email));
+        UserPrincipal principal = (UserPrincipal) authentication.getPrincipal();
+        String jwt = jwtService.generateToken(principal);
 
-        return new JwtResponse(jwt, jwtService.getIssuer(), user.getId(), userDetails.getUsername(), roles.get(0));
+        return new JwtResponse(jwt, jwtService.getIssuer(), principal.getId(), principal.getEmail(), principal.getRole().name());
     }
 }
@@ -1,13 +1,13 @@
 package com.example.bankcards.security;
 
 import com.example.bankcards.exception.BankSecurityException;
+import com.example.bankcards.entity.Role;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
 import org.springframework.stereotype.Component;
@@ -21,11 +21,15 @@ public class JwtAuthFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
     private final UserDetailsService userDetailsService;
+    private final ActiveUserCache activeUserCache;
 
     @Autowired
-    public JwtAuthFilter(JwtService jwtService, UserDetailsService userDetailsService) {
+    public JwtAuthFilter(JwtService jwtService,
+                         UserDetailsService userDetailsService,
+                         ActiveUserCache activeUserCache) {
         this.jwtService = jwtService;
         this.userDetailsService = userDetailsService;
+        this.activeUserCache = activeUserCache;
     }
 
     @Override
@@ -53,15 +57,34 @@ public class JwtAuthFilter extends OncePerRequestFilter {
     }
 
     private void authenticateToken(String token, HttpServletRequest request) {
-        String username = jwtService.getUsernameFromToken(token);
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+        TokenClaims claims = jwtService.parseClaims(token);
+        UsernamePasswordAuthenticationToken authentication = claims.userId() != null
+                ? authenticationFromClaims(claims)
+                : authenticationFromUserDetails(claims.subject());
 
-        if (jwtService.validateToken(token, userDetails)) {
-            UsernamePasswordAuthenticationToken authentication =
-                    new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+        authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+        org.springframework.security.core.context.SecurityContextHolder.getContext().setAuthentication(authentication);
+    }
 
-            authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
-            org.springframework.security.core.context.SecurityContextHolder.getContext().setAuthentication(authentication);
-        }
+    /**
+     * Trusts the user id of the token but takes the role from {@link ActiveUserCache},
+     * so a user whose role changed gets the new authorities before the token expires.
+     */
+    private UsernamePasswordAuthenticationToken authenticationFromClaims(TokenClaims claims) {
+        Long userId = claims.userId();
+        Role role = activeUserCache.currentRole(userId)
+                .orElseThrow(() -> new BankSecurityException("User no longer exists"));
+
+        UserPrincipal principal = new UserPrincipal(userId, claims.subject(), role);
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
+    }
+
+    /**
+     * Fallback for tokens issued before the id and role claims were added.
+     */
+    private UsernamePasswordAuthenticationToken authenticationFromUserDetails(String username) {
+        UserPrincipal principal = (UserPrincipal) userDetailsService.loadUserByUsername(username);
+        principal.eraseCredentials();
+        return new UsernamePasswordAuthenticationToken(principal, null, principal.getAuthorities());
     }
 }
\ No newline at end of file
@@ -1,17 +1,28 @@
 package com.example.bankcards.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
-import org.springframework.security.core.userdetails.UserDetails;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.Date;
+import java.util.HexFormat;
 
 /**
  * Service for JWT token operations.
  * Handles token generation, validation, and parsing using HMAC SHA-256 algorithm.
+ * The signing key and parser are built once; recently verified tokens are remembered by digest
+ * so repeated requests with the same token skip signature verification until the token expires.
+ * The cache holds immutable {@link TokenClaims}, so concurrent requests can share an entry safely.
  *
  * @author Bank System Team
  * @since 1.0.0
@@ -19,40 +30,52 @@ import java.util.Date;
 @Component
 public class JwtService {
 
-    @Value("${app.jwt.secret}")
-    private String jwtSecret;
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String ROLE_CLAIM = "role";
 
-    @Value("${app.jwt.expiration}")
-    private long jwtExpirationMs;
+    private final SecretKey signingKey;
+    private final JwtParser parser;
+    private final long jwtExpirationMs;
+    private final String issuer;
+    private final Cache<String, TokenClaims> verifiedTokens;
 
-    @Value("${app.jwt.issuer}")
-    private String issuer;
-
-    /**
-     * Creates signing key from the configured secret.
-     *
-     * @return HMAC SHA key for token signing
-     */
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(jwtSecret.getBytes());
+    @Autowired
+    public JwtService(@Value("${app.jwt.secret}") String jwtSecret,
+                      @Value("${app.jwt.expiration}") long jwtExpirationMs,
+                      @Value("${app.jwt.issuer}") String issuer,
+                      @Value("${app.jwt.verified-cache.size:10000}") long verifiedCacheSize,
+                      @Value("${app.jwt.verified-cache.ttl:5m}") Duration verifiedCacheTtl) {
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.parser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+        this.jwtExpirationMs = jwtExpirationMs;
+        this.issuer = issuer;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(verifiedCacheSize)
+                .expireAfterWrite(verifiedCacheTtl)
+                .build();
     }
 
     /**
      * Generates JWT token for authenticated user.
+     * The user id and role are embedded as claims so requests can be authenticated without a user lookup.
      *
-     * @param userDetails authenticated user details
+     * @param user authenticated user
      * @return JWT token string
      */
-    public String generateToken(UserDetails userDetails) {
+    public String generateToken(UserPrincipal user) {
         Date now = new Date();
         Date expiry = new Date(now.getTime() + jwtExpirationMs);
 
         return Jwts.builder()
-                .setSubject(userDetails.getUsername())
+                .setSubject(user.getEmail())
+                .claim(USER_ID_CLAIM, user.getId())
+                .claim(ROLE_CLAIM, user.getRole().name())
                 .setIssuedAt(now)
                 .setExpiration(expiry)
                 .setIssuer(issuer)
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -63,40 +86,31 @@ public class JwtService {
      * @return username from token subject
      */
     public String getUsernameFromToken(String token) {
-        return parseClaims(token).getSubject();
+        return parseClaims(token).subject();
     }
 
     /**
-     * Validates JWT token against user details.
+     * Verifies JWT token and extracts claims.
+     * Signature and expiration are verified on first sight of a token; later calls with the same token
+     * are answered from the cache as long as the token has not expired.
      *
-     * @param token JWT token to validate
-     * @param userDetails user details to validate against
-     * @return true if token is valid, false otherwise
+     * @param token JWT token to parse
+     * @return immutable copy of the token claims
+     * @throws JwtException if the token is malformed, expired or has an invalid signature
      */
-    public boolean validateToken(String token, UserDetails userDetails) {
-        try {
-            Claims claims = parseClaims(token);
-            String username = claims.getSubject();
-            Date expiration = claims.getExpiration();
-
-            return username.equals(userDetails.getUsername()) && expiration.after(new Date());
-        } catch (Exception e) {
-            return false;
+    public TokenClaims parseClaims(String token) {
+        String digest = digest(token);
+        TokenClaims cached = verifiedTokens.getIfPresent(digest);
+        if (cached != null) {
+            if (cached.isValidAt(Instant.now())) {
+                return cached;
+            }
+            verifiedTokens.invalidate(digest);
         }
-    }
 
-    /**
-     * Parses JWT token and extracts claims.
-     *
-     * @param token JWT token to parse
-     * @return token claims
-     */
-    private Claims parseClaims(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+        TokenClaims claims = TokenClaims.of(parser.parseClaimsJws(token).getBody());
+        verifiedTokens.put(digest, claims);
+        return claims;
     }
 
     /**
@@ -107,4 +121,13 @@ public class JwtService {
     public String getIssuer() {
         return issuer;
     }
-}
\ No newline at end of file
+
+    private static String digest(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
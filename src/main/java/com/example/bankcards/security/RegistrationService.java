@@ -5,21 +5,27 @@ import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BankSecurityException;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.service.CacheInvalidationBus;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 
+import java.util.List;
+
 @Service
 public class RegistrationService {
 
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     @Autowired
     public RegistrationService(UserRepository userRepository,
-                               PasswordEncoder passwordEncoder) {
+                               PasswordEncoder passwordEncoder,
+                               CacheInvalidationBus cacheInvalidationBus) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.cacheInvalidationBus = cacheInvalidationBus;
     }
 
     public User registerUser(RegistrationRequest registrationRequest) {
@@ -29,7 +35,10 @@ public class RegistrationService {
 
         User user = buildUserFromRequest(registrationRequest);
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        // Other nodes may have cached an empty findByEmail result for this address
+        cacheInvalidationBus.publish(CacheInvalidationBus.USERS, List.of(savedUser.getId()));
+        return savedUser;
     }
 
     private User buildUserFromRequest(RegistrationRequest req) {
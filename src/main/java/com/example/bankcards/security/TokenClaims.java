@@ -0,0 +1,42 @@
+package com.example.bankcards.security;
+
+import io.jsonwebtoken.Claims;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+/**
+ * Immutable copy of the claims of a verified JWT.
+ * Verified tokens are cached and shared across requests, so the mutable
+ * {@link Claims} map itself is never handed out.
+ *
+ * @param subject user email
+ * @param userId user ID, null for tokens issued before the claim was added
+ * @param role role name, null for tokens issued before the claim was added
+ * @param expiration expiration time, null if the token does not expire
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+public record TokenClaims(String subject,
+                          @Nullable Long userId,
+                          @Nullable String role,
+                          @Nullable Instant expiration) {
+
+    static TokenClaims of(Claims claims) {
+        return new TokenClaims(
+                claims.getSubject(),
+                claims.get(JwtService.USER_ID_CLAIM, Long.class),
+                claims.get(JwtService.ROLE_CLAIM, String.class),
+                claims.getExpiration() == null ? null : claims.getExpiration().toInstant());
+    }
+
+    /**
+     * Checks whether the token is still valid at the given time.
+     *
+     * @param now current time
+     * @return true if the token has no expiration or expires after {@code now}
+     */
+    public boolean isValidAt(Instant now) {
+        return expiration == null || expiration.isAfter(now);
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.bankcards.security;
+
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.entity.User;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.security.core.CredentialsContainer;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Authenticated user as seen by the security layer.
+ * Carries the user id and role so request handling never has to look the user up again.
+ * The password is only present while authenticating credentials at login.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Getter
+@EqualsAndHashCode(of = "id")
+@ToString(exclude = "password")
+public class UserPrincipal implements UserDetails, CredentialsContainer {
+
+    private final Long id;
+    private final String email;
+    private final Role role;
+    private String password;
+
+    public UserPrincipal(Long id, String email, Role role) {
+        this(id, email, role, null);
+    }
+
+    private UserPrincipal(Long id, String email, Role role, String password) {
+        this.id = id;
+        this.email = email;
+        this.role = role;
+        this.password = password;
+    }
+
+    /**
+     * Creates a principal with credentials for password authentication.
+     *
+     * @param user user entity
+     * @return principal holding the encoded password
+     */
+    public static UserPrincipal withCredentials(User user) {
+        return new UserPrincipal(user.getId(), user.getEmail(), user.getRole(), user.getPassword());
+    }
+
+    @Override
+    public void eraseCredentials() {
+        password = null;
+    }
+
+    @Override
+    public Collection<? extends GrantedAuthority> getAuthorities() {
+        return List.of(new SimpleGrantedAuthority(role.name()));
+    }
+
+    @Override
+    public String getUsername() {
+        return email;
+    }
+
+    @Override
+    public boolean isAccountNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isAccountNonLocked() {
+        return true;
+    }
+
+    @Override
+    public boolean isCredentialsNonExpired() {
+        return true;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+}
@@ -0,0 +1,242 @@
+package com.example.bankcards.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+/**
+ * Keeps the in-process caches of all application nodes in step through PostgreSQL LISTEN/NOTIFY.
+ * Writers publish the keys they changed; the notification is sent in the writer's transaction,
+ * so PostgreSQL delivers it only if that transaction commits. Every node listens on its own
+ * connection outside the pool and evicts the keys from its local caches. The publishing node
+ * also evicts them itself right after commit, so it never has to wait for its own notification.
+ * After the listening connection is lost, every subscribed cache is cleared, since
+ * notifications sent in the meantime are gone.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements SmartLifecycle {
+
+    static final String CHANNEL = "cache_invalidation";
+
+    /**
+     * Users by id: the Hibernate "users" region, cacheable user queries and the active user cache.
+     * Published on inserts too, since other nodes may have cached an empty lookup by email.
+     */
+    public static final String USERS = "users";
+
+    /**
+     * Card balance totals by user id.
+     */
+    public static final String USER_BALANCES = "userBalances";
+
+    /**
+     * Keeps each payload below the 8000 byte NOTIFY limit, whatever the length of the keys.
+     */
+    private static final int MAX_PAYLOAD_BYTES = 7900;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DataSourceProperties dataSourceProperties;
+    private final boolean enabled;
+    private final Duration pollTimeout;
+    private final Duration reconnectDelay;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    private volatile boolean running;
+    private Thread listener;
+
+    @Autowired
+    public CacheInvalidationBus(JdbcTemplate jdbcTemplate,
+                                DataSourceProperties dataSourceProperties,
+                                @Value("${app.cache-invalidation.enabled:true}") boolean enabled,
+                                @Value("${app.cache-invalidation.poll-timeout:500ms}") Duration pollTimeout,
+                                @Value("${app.cache-invalidation.reconnect-delay:5s}") Duration reconnectDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.enabled = enabled;
+        this.pollTimeout = pollTimeout;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    /**
+     * Callback of a local cache that receives invalidations.
+     */
+    public interface Subscriber {
+
+        void evict(Set<Long> keys);
+
+        void evictAll();
+    }
+
+    /**
+     * Registers a local cache for invalidations published under the given name.
+     *
+     * @param cache cache name used by publishers
+     * @param subscriber local cache callback
+     */
+    public void subscribe(String cache, Subscriber subscriber) {
+        subscribers.computeIfAbsent(cache, name -> new CopyOnWriteArrayList<>()).add(subscriber);
+    }
+
+    /**
+     * Evicts the keys on every node once the current transaction commits, or right away if there is none.
+     *
+     * @param cache cache name
+     * @param keys changed keys
+     */
+    public void publish(String cache, Collection<Long> keys) {
+        Set<Long> keySet = Set.copyOf(keys);
+        if (keySet.isEmpty()) {
+            return;
+        }
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictLocally(cache, keySet);
+                }
+            });
+        } else {
+            evictLocally(cache, keySet);
+        }
+
+        if (enabled) {
+            payloads(cache, keySet).forEach(payload ->
+                    jdbcTemplate.queryForList("SELECT pg_notify(?, ?)", CHANNEL, payload));
+        }
+    }
+
+    /**
+     * Splits the keys into {@code cache:key,key,...} payloads of at most {@link #MAX_PAYLOAD_BYTES} bytes.
+     * Cache names and keys are ASCII, so the payload length in characters equals its length in bytes.
+     */
+    private static List<String> payloads(String cache, Collection<Long> keys) {
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(cache).append(':');
+        int emptyLength = payload.length();
+
+        for (Long key : keys) {
+            String next = String.valueOf(key);
+            boolean empty = payload.length() == emptyLength;
+            if (!empty && payload.length() + 1 + next.length() > MAX_PAYLOAD_BYTES) {
+                payloads.add(payload.toString());
+                payload.setLength(emptyLength);
+                empty = true;
+            }
+            if (!empty) {
+                payload.append(',');
+            }
+            payload.append(next);
+        }
+        if (payload.length() > emptyLength) {
+            payloads.add(payload.toString());
+        }
+        return payloads;
+    }
+
+    @Override
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "cache-invalidation-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+            try {
+                listener.join(pollTimeout.multipliedBy(2).toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Anything published before LISTEN took effect was missed
+                subscribers.values().forEach(list -> list.forEach(Subscriber::evictAll));
+
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) pollTimeout.toMillis());
+                    if (notifications != null) {
+                        Arrays.stream(notifications).forEach(notification -> handle(notification.getParameter()));
+                    }
+                }
+            } catch (SQLException e) {
+                if (running) {
+                    log.warn("Cache invalidation listener lost its connection, reconnecting in {}", reconnectDelay, e);
+                    pause();
+                }
+            }
+        }
+    }
+
+    private void handle(String payload) {
+        int separator = payload.indexOf(':');
+        try {
+            Set<Long> keys = Arrays.stream(payload.substring(separator + 1).split(","))
+                    .map(Long::valueOf)
+                    .collect(Collectors.toSet());
+            evictLocally(payload.substring(0, separator), keys);
+        } catch (RuntimeException e) {
+            log.warn("Ignoring malformed cache invalidation {}", payload, e);
+        }
+    }
+
+    private void evictLocally(String cache, Set<Long> keys) {
+        subscribers.getOrDefault(cache, List.of()).forEach(subscriber -> subscriber.evict(keys));
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
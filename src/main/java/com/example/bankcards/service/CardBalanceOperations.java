@@ -0,0 +1,117 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.CardRepository;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Changes card balances with single conditional UPDATE statements.
+ * The card is never read before the update; it is only loaded when no row
+ * matched, to consolidate a sharded card or to report why the operation was rejected.
+ * Each UPDATE returns the owner and last four digits of the card, so callers
+ * never have to read the card back.
+ * Credits to sharded cards go to a balance shard instead of the card row.
+ * The persistence context is flushed before and cleared after each update, so cards
+ * loaded earlier in the request are never read or written back with stale balances.
+ * Callers must run inside a transaction.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+public class CardBalanceOperations {
+
+    private static final String DEBIT_SQL = "UPDATE cards SET balance = balance - ?, version = version + 1, " +
+            "updated_at = LOCALTIMESTAMP WHERE id = ? AND balance >= ? AND status = 'ACTIVE' " +
+            "RETURNING user_id, card_last4";
+
+    private static final String CREDIT_SQL = "UPDATE cards SET balance = balance + ?, version = version + 1, " +
+            "updated_at = LOCALTIMESTAMP WHERE id = ? AND balance_shards <= 1 " +
+            "RETURNING user_id, card_last4";
+
+    private final CardRepository cardRepository;
+    private final CardBalanceShards cardBalanceShards;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+
+    @Autowired
+    public CardBalanceOperations(CardRepository cardRepository,
+                                 CardBalanceShards cardBalanceShards,
+                                 JdbcTemplate jdbcTemplate,
+                                 EntityManager entityManager) {
+        this.cardRepository = cardRepository;
+        this.cardBalanceShards = cardBalanceShards;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityManager = entityManager;
+    }
+
+    /**
+     * Owner and last four digits of a card whose balance was changed.
+     */
+    public record UpdatedCard(Long userId, String cardLast4) {
+    }
+
+    /**
+     * Withdraws the amount from an active card.
+     *
+     * @param cardId card ID
+     * @param amount amount to withdraw
+     * @param insufficientFundsMessage message used when the balance is too low
+     * @return owner and last four digits of the card
+     * @throws NotFoundException if the card does not exist
+     * @throws IllegalStateException if the card is not active
+     * @throws InsufficientFundsException if the balance is too low
+     */
+    public UpdatedCard debit(Long cardId, BigDecimal amount, String insufficientFundsMessage) {
+        Optional<UpdatedCard> updated = update(DEBIT_SQL, amount, cardId, amount);
+        if (updated.isPresent()) {
+            return updated.get();
+        }
+
+        Card card = cardRepository.findById(cardId)
+                .orElseThrow(() -> new NotFoundException("Card", cardId));
+        if (card.getStatus() != CardStatus.ACTIVE) {
+            throw new IllegalStateException("Card is not active");
+        }
+        if (card.isSharded() && cardBalanceShards.consolidate(cardId).signum() > 0) {
+            updated = update(DEBIT_SQL, amount, cardId, amount);
+            if (updated.isPresent()) {
+                return updated.get();
+            }
+        }
+        throw new InsufficientFundsException(insufficientFundsMessage);
+    }
+
+    /**
+     * Adds the amount to the card balance, or to one of its shards if the card is sharded.
+     *
+     * @param cardId card ID
+     * @param amount amount to add
+     * @return owner and last four digits of the card
+     * @throws NotFoundException if the card does not exist
+     */
+    public UpdatedCard credit(Long cardId, BigDecimal amount) {
+        return update(CREDIT_SQL, amount, cardId)
+                .or(() -> cardBalanceShards.credit(cardId, amount))
+                .orElseThrow(() -> new NotFoundException("Card", cardId));
+    }
+
+    private Optional<UpdatedCard> update(String sql, Object... args) {
+        entityManager.flush();
+        List<UpdatedCard> rows = jdbcTemplate.query(sql,
+                (rs, rowNum) -> new UpdatedCard(rs.getLong("user_id"), rs.getString("card_last4")), args);
+        entityManager.clear();
+
+        return rows.stream().findFirst();
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.bankcards.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Sub-balance rows of sharded cards. Credits to a sharded card go to one
+ * randomly chosen shard, so concurrent inbound transfers do not queue on the
+ * single {@code cards} row. Debits consolidate the shards into the card row
+ * first; consolidation always locks the card row before the shard rows.
+ * Callers must run inside a transaction.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+public class CardBalanceShards {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public CardBalanceShards(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Adds the amount to a random shard of the card.
+     *
+     * @return owner and last four digits of the card, empty if the card does not exist or is not sharded
+     */
+    public Optional<CardBalanceOperations.UpdatedCard> credit(Long cardId, BigDecimal amount) {
+        return jdbcTemplate.query("""
+                UPDATE card_balance_shards s SET balance = s.balance + ?
+                FROM (SELECT id, user_id, card_last4, floor(random() * balance_shards)::int AS shard_no
+                      FROM cards WHERE id = ? AND balance_shards > 1) pick
+                WHERE s.card_id = pick.id AND s.shard_no = pick.shard_no
+                RETURNING pick.user_id, pick.card_last4
+                """, (rs, rowNum) -> new CardBalanceOperations.UpdatedCard(rs.getLong("user_id"), rs.getString("card_last4")),
+                amount, cardId).stream().findFirst();
+    }
+
+    /**
+     * Moves all shard balances of the card into the card row.
+     *
+     * @return amount moved into the card row
+     */
+    public BigDecimal consolidate(Long cardId) {
+        jdbcTemplate.queryForList("SELECT id FROM cards WHERE id = ? FOR UPDATE", Long.class, cardId);
+
+        BigDecimal drained = jdbcTemplate.queryForObject("""
+                WITH drained AS (
+                    UPDATE card_balance_shards s SET balance = 0
+                    FROM (SELECT shard_no, balance FROM card_balance_shards
+                          WHERE card_id = ? AND balance <> 0 FOR UPDATE) old
+                    WHERE s.card_id = ? AND s.shard_no = old.shard_no
+                    RETURNING old.balance
+                )
+                SELECT COALESCE(SUM(balance), 0) FROM drained
+                """, BigDecimal.class, cardId, cardId);
+
+        if (drained.signum() != 0) {
+            jdbcTemplate.update("UPDATE cards SET balance = balance + ?, version = version + 1, updated_at = now() " +
+                    "WHERE id = ?", drained, cardId);
+        }
+        return drained;
+    }
+
+    /**
+     * Sums the credits held in the shards of the card without consolidating them.
+     *
+     * @param cardId card ID
+     * @return shard balance total, zero if the card is not sharded
+     */
+    public BigDecimal balanceOf(Long cardId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(balance), 0) FROM card_balance_shards WHERE card_id = ?", BigDecimal.class, cardId);
+    }
+
+    /**
+     * Changes the number of shards of a card. Existing shard balances are
+     * consolidated first, so no money is left in removed shards.
+     *
+     * @param cardId card ID
+     * @param shards new number of shards, 1 turns sharding off
+     */
+    public void reshard(Long cardId, int shards) {
+        consolidate(cardId);
+
+        jdbcTemplate.update("DELETE FROM card_balance_shards WHERE card_id = ?", cardId);
+        if (shards > 1) {
+            jdbcTemplate.update("INSERT INTO card_balance_shards (card_id, shard_no, balance) " +
+                    "SELECT ?, shard_no, 0 FROM generate_series(0, ? - 1) AS shard_no", cardId, shards);
+        }
+        jdbcTemplate.update("UPDATE cards SET balance_shards = ?, version = version + 1, updated_at = now() " +
+                "WHERE id = ?", shards, cardId);
+    }
+}
@@ -1,10 +1,11 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardBlockDTO;
 import com.example.bankcards.dto.CardBlockRequest;
 import com.example.bankcards.entity.BlockRequestStatus;
 import com.example.bankcards.entity.CardBlock;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.lang.Nullable;
 
 import java.time.LocalDateTime;
@@ -13,19 +14,21 @@ public interface CardBlockService {
 
     CardBlock createBlockRequest(CardBlockRequest request);
 
-    Page<CardBlock> getBlockRequestsByUserId(Long userId,
-                                             @Nullable Long cardId,
-                                             @Nullable BlockRequestStatus status,
-                                             @Nullable LocalDateTime startDate,
-                                             @Nullable LocalDateTime endDate,
-                                             Pageable pageable);
+    Slice<CardBlockDTO> getBlockRequestsByUserId(Long userId,
+                                                 @Nullable Long cardId,
+                                                 @Nullable BlockRequestStatus status,
+                                                 @Nullable LocalDateTime startDate,
+                                                 @Nullable LocalDateTime endDate,
+                                                 Pageable pageable,
+                                                 boolean withTotal);
 
-    Page<CardBlock> getAllBlockRequests(@Nullable Long userId,
-                                        @Nullable Long cardId,
-                                        @Nullable BlockRequestStatus status,
-                                        @Nullable LocalDateTime startDate,
-                                        @Nullable LocalDateTime endDate,
-                                        Pageable pageable);
+    Slice<CardBlockDTO> getAllBlockRequests(@Nullable Long userId,
+                                            @Nullable Long cardId,
+                                            @Nullable BlockRequestStatus status,
+                                            @Nullable LocalDateTime startDate,
+                                            @Nullable LocalDateTime endDate,
+                                            Pageable pageable,
+                                            boolean withTotal);
 
     CardBlock approveBlockRequest(Long blockId);
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardBlockDTO;
 import com.example.bankcards.dto.CardBlockRequest;
 import com.example.bankcards.entity.BlockRequestStatus;
 import com.example.bankcards.entity.Card;
@@ -9,11 +10,13 @@ import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.repository.CardBlockRepository;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ProjectionRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardBlockUtils;
 import com.example.bankcards.util.specifications.CardBlockSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
@@ -25,14 +28,17 @@ import java.time.LocalDateTime;
 public class CardBlockServiceImpl implements CardBlockService {
 
     private final CardBlockRepository cardBlockRepository;
+    private final ProjectionRepository projectionRepository;
     private final CardRepository cardRepository;
     private final UserRepository userRepository;
 
     @Autowired
     public CardBlockServiceImpl(CardBlockRepository cardBlockRepository,
+                                ProjectionRepository projectionRepository,
                                 CardRepository cardRepository,
                                 UserRepository userRepository) {
         this.cardBlockRepository = cardBlockRepository;
+        this.projectionRepository = projectionRepository;
         this.cardRepository = cardRepository;
         this.userRepository = userRepository;
     }
@@ -59,35 +65,39 @@ public class CardBlockServiceImpl implements CardBlockService {
     }
 
     @Override
-    public Page<CardBlock> getBlockRequestsByUserId(Long userId,
-                                                    @Nullable Long cardId,
-                                                    @Nullable BlockRequestStatus status,
-                                                    @Nullable LocalDateTime startDate,
-                                                    @Nullable LocalDateTime endDate,
-                                                    Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Slice<CardBlockDTO> getBlockRequestsByUserId(Long userId,
+                                                        @Nullable Long cardId,
+                                                        @Nullable BlockRequestStatus status,
+                                                        @Nullable LocalDateTime startDate,
+                                                        @Nullable LocalDateTime endDate,
+                                                        Pageable pageable,
+                                                        boolean withTotal) {
         Specification<CardBlock> spec = Specification
                 .where(CardBlockSpecifications.hasUserId(userId))
                 .and(CardBlockSpecifications.hasCardId(cardId))
                 .and(CardBlockSpecifications.hasStatus(status))
                 .and(CardBlockSpecifications.requestedAtBetween(startDate, endDate));
 
-        return cardBlockRepository.findAll(spec, pageable);
+        return projectionRepository.findAll(CardBlock.class, spec, pageable, withTotal, CardBlockUtils.PROJECTION);
     }
 
     @Override
-    public Page<CardBlock> getAllBlockRequests(@Nullable Long userId,
-                                               @Nullable Long cardId,
-                                               @Nullable BlockRequestStatus status,
-                                               @Nullable LocalDateTime startDate,
-                                               @Nullable LocalDateTime endDate,
-                                               Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Slice<CardBlockDTO> getAllBlockRequests(@Nullable Long userId,
+                                                   @Nullable Long cardId,
+                                                   @Nullable BlockRequestStatus status,
+                                                   @Nullable LocalDateTime startDate,
+                                                   @Nullable LocalDateTime endDate,
+                                                   Pageable pageable,
+                                                   boolean withTotal) {
         Specification<CardBlock> spec = Specification
                 .where(CardBlockSpecifications.hasUserId(userId))
                 .and(CardBlockSpecifications.hasCardId(cardId))
                 .and(CardBlockSpecifications.hasStatus(status))
                 .and(CardBlockSpecifications.requestedAtBetween(startDate, endDate));
 
-        return cardBlockRepository.findAll(spec, pageable);
+        return projectionRepository.findAll(CardBlock.class, spec, pageable, withTotal, CardBlockUtils.PROJECTION);
     }
 
     @Override
@@ -0,0 +1,159 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.Card;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CardNumberEncryptor;
+import com.example.bankcards.util.CardNumberHasher;
+import com.example.bankcards.util.MaskUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.TaskScheduler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * Fills the card number blind index and last four digits for cards created before
+ * those columns existed. Rows are processed in id order, one batch per transaction, and
+ * only these columns are written so concurrent balance updates are never overwritten.
+ * The numbers are decrypted here rather than in a migration, so the key never reaches SQL.
+ * The backfill runs on the task scheduler after startup, so it never delays readiness, and
+ * is skipped when no card is missing an index.
+ * Until every card has an index, lookups by card number also try the ciphertext;
+ * {@link #isComplete()} tells them when that fallback is no longer needed without
+ * querying the database on every lookup.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class CardNumberHashBackfill {
+
+    private final CardRepository cardRepository;
+    private final CardNumberHasher cardNumberHasher;
+    private final CardNumberEncryptor cardNumberEncryptor;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskScheduler taskScheduler;
+    private final boolean enabled;
+    private final int batchSize;
+    private final Duration recheckInterval;
+
+    private volatile boolean complete;
+    private volatile Instant nextCheck = Instant.MIN;
+
+    @Autowired
+    public CardNumberHashBackfill(CardRepository cardRepository,
+                                  CardNumberHasher cardNumberHasher,
+                                  CardNumberEncryptor cardNumberEncryptor,
+                                  TransactionTemplate transactionTemplate,
+                                  TaskScheduler taskScheduler,
+                                  @Value("${app.encryption.blind-index-backfill.enabled:true}") boolean enabled,
+                                  @Value("${app.encryption.blind-index-backfill.batch-size:500}") int batchSize,
+                                  @Value("${app.encryption.blind-index-backfill.recheck-interval:1m}") Duration recheckInterval) {
+        this.cardRepository = cardRepository;
+        this.cardNumberHasher = cardNumberHasher;
+        this.cardNumberEncryptor = cardNumberEncryptor;
+        this.transactionTemplate = transactionTemplate;
+        this.taskScheduler = taskScheduler;
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.recheckInterval = recheckInterval;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled && !recheck()) {
+            taskScheduler.schedule(this::backfillInBackground, Instant.now());
+        }
+    }
+
+    /**
+     * Tells whether every card has a blind index. Once true it stays true, since new cards
+     * are always created with one. While the backfill is pending the database is asked at
+     * most once per recheck interval, so lookups do not pay an extra query each.
+     *
+     * @return true if lookups by blind index alone find every card
+     */
+    public boolean isComplete() {
+        if (!complete && Instant.now().isAfter(nextCheck)) {
+            recheck();
+        }
+        return complete;
+    }
+
+    /**
+     * Puts lookups back on the ciphertext fallback after indexes were cleared outside the
+     * application, for example to rotate the blind index key before running {@link #backfill()}.
+     */
+    public void markIncomplete() {
+        complete = false;
+        nextCheck = Instant.now().plus(recheckInterval);
+    }
+
+    /**
+     * Computes the blind index and last four digits for every card missing either of them.
+     *
+     * @return number of updated cards
+     */
+    public long backfill() {
+        long updated = 0;
+        Long lastId = 0L;
+
+        while (true) {
+            Long fromId = lastId;
+            Slice<Card> batch = transactionTemplate.execute(status -> processBatch(fromId));
+
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+
+            updated += batch.getNumberOfElements();
+            lastId = batch.getContent().get(batch.getNumberOfElements() - 1).getId();
+
+            if (!batch.hasNext()) {
+                break;
+            }
+        }
+
+        if (updated > 0) {
+            log.info("Backfilled card number hash and last four digits for {} cards", updated);
+        }
+        recheck();
+        return updated;
+    }
+
+    private void backfillInBackground() {
+        try {
+            backfill();
+        } catch (RuntimeException e) {
+            log.warn("Card number hash backfill failed, lookups keep the ciphertext fallback", e);
+        }
+    }
+
+    private boolean recheck() {
+        nextCheck = Instant.now().plus(recheckInterval);
+        complete = !cardRepository.existsByCardNumberHashIsNull();
+        return complete;
+    }
+
+    private Slice<Card> processBatch(Long fromId) {
+        Slice<Card> batch = cardRepository.findMissingCardNumberColumnsAfter(
+                fromId, PageRequest.of(0, batchSize, Sort.by("id")));
+
+        for (Card card : batch) {
+            String cardNumber = cardNumberEncryptor.decrypt(card.getEncryptedCardNumber());
+            cardRepository.updateCardNumberColumns(card.getId(), cardNumberHasher.hash(cardNumber),
+                    MaskUtils.lastFour(cardNumber));
+        }
+        return batch;
+    }
+}
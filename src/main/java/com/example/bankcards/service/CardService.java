@@ -1,10 +1,12 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardDTO;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.CreateCardRequest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.lang.Nullable;
 
 import java.math.BigDecimal;
@@ -45,13 +47,15 @@ public interface CardService {
      * @param startDate creation start date (can be null)
      * @param endDate creation end date (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of user cards
      */
-    Page<Card> getUserCardsByUserId(Long userId,
-                                    @Nullable CardStatus status,
-                                    @Nullable LocalDateTime startDate,
-                                    @Nullable LocalDateTime endDate,
-                                    Pageable pageable);
+    Slice<CardDTO> getUserCardsByUserId(Long userId,
+                                        @Nullable CardStatus status,
+                                        @Nullable LocalDateTime startDate,
+                                        @Nullable LocalDateTime endDate,
+                                        Pageable pageable,
+                                        boolean withTotal);
 
     /**
      * Gets user cards (alias for getUserCardsByUserId).
@@ -61,13 +65,15 @@ public interface CardService {
      * @param startDate creation start date (can be null)
      * @param endDate creation end date (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of user cards
      */
-    Page<Card> getUserCards(Long userId,
-                            @Nullable CardStatus status,
-                            @Nullable LocalDateTime startDate,
-                            @Nullable LocalDateTime endDate,
-                            Pageable pageable);
+    Slice<CardDTO> getUserCards(Long userId,
+                                @Nullable CardStatus status,
+                                @Nullable LocalDateTime startDate,
+                                @Nullable LocalDateTime endDate,
+                                Pageable pageable,
+                                boolean withTotal);
 
     /**
      * Gets all cards in the system with filtering.
@@ -77,13 +83,15 @@ public interface CardService {
      * @param startDate creation start date (can be null)
      * @param endDate creation end date (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of all cards
      */
-    Page<Card> getAllCards(@Nullable Long userId,
-                           @Nullable CardStatus status,
-                           @Nullable LocalDateTime startDate,
-                           @Nullable LocalDateTime endDate,
-                           Pageable pageable);
+    Slice<CardDTO> getAllCards(@Nullable Long userId,
+                               @Nullable CardStatus status,
+                               @Nullable LocalDateTime startDate,
+                               @Nullable LocalDateTime endDate,
+                               Pageable pageable,
+                               boolean withTotal);
 
     /**
      * Gets total user balance across all cards.
@@ -132,6 +140,18 @@ public interface CardService {
      */
     Card activateCard(Long id);
 
+    /**
+     * Sets the number of balance shards of a card. Credits to a sharded card are
+     * spread over that many sub-balance rows; 1 turns sharding off.
+     *
+     * @param id card identifier
+     * @param shards number of shards
+     * @return updated card
+     * @throws IllegalArgumentException if the number of shards is out of range
+     * @throws com.example.bankcards.exception.NotFoundException if card not found
+     */
+    Card setBalanceShards(Long id, int shards);
+
     /**
      * Deletes a card by identifier.
      *
@@ -1,89 +1,139 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CardDTO;
 import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardStatus;
 import com.example.bankcards.entity.CreateCardRequest;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ProjectionRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.CardNumberEncryptor;
+import com.example.bankcards.util.CardNumberHasher;
+import com.example.bankcards.util.CardUtils;
+import com.example.bankcards.util.MaskUtils;
 import com.example.bankcards.util.specifications.CardSpecifications;
+import jakarta.persistence.EntityManager;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 @Service
 public class CardServiceImpl implements CardService {
 
+    private static final int MAX_BALANCE_SHARDS = 64;
+
     private final CardRepository cardRepository;
+    private final ProjectionRepository projectionRepository;
     private final UserRepository userRepository;
+    private final CardNumberHasher cardNumberHasher;
+    private final CardNumberEncryptor cardNumberEncryptor;
+    private final CardNumberHashBackfill cardNumberHashBackfill;
+    private final Ledger ledger;
+    private final CardBalanceShards cardBalanceShards;
+    private final UserBalanceCache userBalanceCache;
+    private final EntityManager entityManager;
 
     @Autowired
-    public CardServiceImpl(CardRepository cardRepository, UserRepository userRepository) {
+    public CardServiceImpl(CardRepository cardRepository,
+                           ProjectionRepository projectionRepository,
+                           UserRepository userRepository,
+                           CardNumberHasher cardNumberHasher,
+                           CardNumberEncryptor cardNumberEncryptor,
+                           CardNumberHashBackfill cardNumberHashBackfill,
+                           Ledger ledger,
+                           CardBalanceShards cardBalanceShards,
+                           UserBalanceCache userBalanceCache,
+                           EntityManager entityManager) {
         this.cardRepository = cardRepository;
+        this.projectionRepository = projectionRepository;
         this.userRepository = userRepository;
+        this.cardNumberHasher = cardNumberHasher;
+        this.cardNumberEncryptor = cardNumberEncryptor;
+        this.cardNumberHashBackfill = cardNumberHashBackfill;
+        this.ledger = ledger;
+        this.cardBalanceShards = cardBalanceShards;
+        this.userBalanceCache = userBalanceCache;
+        this.entityManager = entityManager;
     }
 
     @Override
     public Card findById(Long id) {
         return cardRepository.findById(id)
+                .map(this::withShardedBalance)
                 .orElseThrow(() -> new NotFoundException("Card", id));
     }
 
     @Override
     public Card findByCardNumber(String cardNumber) {
-        return cardRepository.findByCardNumber(cardNumber)
+        // Rows that the backfill has not reached yet are still found through the
+        // deterministic ciphertext, so lookups keep working while it runs.
+        return cardRepository.findByCardNumberHash(cardNumberHasher.hash(cardNumber))
+                .or(() -> cardNumberHashBackfill.isComplete()
+                        ? Optional.empty()
+                        : cardRepository.findByEncryptedCardNumber(cardNumberEncryptor.encrypt(cardNumber)))
+                .map(this::withShardedBalance)
                 .orElseThrow(() -> new NotFoundException("Card not found with number: " + cardNumber));
     }
 
     @Override
-    public Page<Card> getUserCardsByUserId(Long userId,
-                                           @Nullable CardStatus status,
-                                           @Nullable LocalDateTime startDate,
-                                           @Nullable LocalDateTime endDate,
-                                           Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Slice<CardDTO> getUserCardsByUserId(Long userId,
+                                               @Nullable CardStatus status,
+                                               @Nullable LocalDateTime startDate,
+                                               @Nullable LocalDateTime endDate,
+                                               Pageable pageable,
+                                               boolean withTotal) {
         Specification<Card> spec = Specification
                 .where(CardSpecifications.hasUserId(userId))
                 .and(CardSpecifications.hasStatus(status))
                 .and(CardSpecifications.createdAtBetween(startDate, endDate));
 
-        return cardRepository.findAll(spec, pageable);
+        return projectionRepository.findAll(Card.class, spec, pageable, withTotal, CardUtils.PROJECTION);
     }
 
     @Override
-    public Page<Card> getUserCards(Long userId,
-                                    @Nullable CardStatus status,
-                                    @Nullable LocalDateTime startDate,
-                                    @Nullable LocalDateTime endDate,
-                                    Pageable pageable) {
-        return getUserCardsByUserId(userId, status, startDate, endDate, pageable);
+    @Transactional(readOnly = true)
+    public Slice<CardDTO> getUserCards(Long userId,
+                                       @Nullable CardStatus status,
+                                       @Nullable LocalDateTime startDate,
+                                       @Nullable LocalDateTime endDate,
+                                       Pageable pageable,
+                                       boolean withTotal) {
+        return getUserCardsByUserId(userId, status, startDate, endDate, pageable, withTotal);
     }
 
     @Override
     public BigDecimal getUserBalance(Long userId) {
-        return cardRepository.sumBalanceByUserId(userId)
-                .orElse(BigDecimal.ZERO);
+        return userBalanceCache.get(userId);
     }
 
     @Override
-    public Page<Card> getAllCards(@Nullable Long userId,
-                                  @Nullable CardStatus status,
-                                  @Nullable LocalDateTime startDate,
-                                  @Nullable LocalDateTime endDate,
-                                  Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Slice<CardDTO> getAllCards(@Nullable Long userId,
+                                      @Nullable CardStatus status,
+                                      @Nullable LocalDateTime startDate,
+                                      @Nullable LocalDateTime endDate,
+                                      Pageable pageable,
+                                      boolean withTotal) {
         Specification<Card> spec = Specification
                 .where(CardSpecifications.hasUserId(userId))
                 .and(CardSpecifications.hasStatus(status))
                 .and(CardSpecifications.createdAtBetween(startDate, endDate));
 
-        return cardRepository.findAll(spec, pageable);
+        return projectionRepository.findAll(Card.class, spec, pageable, withTotal, CardUtils.PROJECTION);
     }
 
     @Override
@@ -92,6 +142,7 @@ public class CardServiceImpl implements CardService {
     }
 
     @Override
+    @Transactional
     public Card createCard(CreateCardRequest request) {
         User user = userRepository.findById(request.getUserId())
                 .orElseThrow(() -> new NotFoundException("User", request.getUserId()));
@@ -102,12 +153,19 @@ public class CardServiceImpl implements CardService {
 
         Card card = new Card();
         card.setUser(user);
-        card.setCardNumber(request.getCardNumber());
+        card.setEncryptedCardNumber(cardNumberEncryptor.encrypt(request.getCardNumber()));
+        card.setCardLast4(MaskUtils.lastFour(request.getCardNumber()));
+        card.setCardNumberHash(cardNumberHasher.hash(request.getCardNumber()));
         card.setExpiryDate(request.getExpiryDate());
         card.setBalance(request.getBalance());
         card.setStatus(CardStatus.ACTIVE);
 
-        return cardRepository.save(card);
+        Card savedCard = cardRepository.save(card);
+        if (savedCard.getBalance().signum() > 0) {
+            ledger.record(LedgerMovement.opening(savedCard.getId(), savedCard.getBalance()));
+            userBalanceCache.evictAfterCommit(List.of(user.getId()));
+        }
+        return savedCard;
     }
 
     @Override
@@ -120,7 +178,7 @@ public class CardServiceImpl implements CardService {
 
         card.setStatus(CardStatus.BLOCKED);
 
-        return cardRepository.save(card);
+        return withShardedBalance(cardRepository.save(card));
     }
 
     @Override
@@ -137,25 +195,53 @@ public class CardServiceImpl implements CardService {
 
         card.setStatus(CardStatus.ACTIVE);
 
-        return cardRepository.save(card);
+        return withShardedBalance(cardRepository.save(card));
     }
 
     @Override
-    public void deleteById(Long id) {
+    @Transactional
+    public Card setBalanceShards(Long id, int shards) {
+        if (shards < 1 || shards > MAX_BALANCE_SHARDS) {
+            throw new IllegalArgumentException("Number of shards must be between 1 and " + MAX_BALANCE_SHARDS);
+        }
         if (!existsById(id)) {
             throw new NotFoundException("Card", id);
         }
 
+        cardBalanceShards.reshard(id, shards);
+        entityManager.clear();
+
+        return findById(id);
+    }
+
+    @Override
+    public void deleteById(Long id) {
+        Long ownerId = cardRepository.findOwnerIdById(id)
+                .orElseThrow(() -> new NotFoundException("Card", id));
+        if (ledger.hasEntriesForCard(id)) {
+            throw new IllegalStateException("Card has ledger history and cannot be deleted, block it instead");
+        }
+
         cardRepository.deleteById(id);
+        userBalanceCache.evictAfterCommit(List.of(ownerId));
     }
 
     @Override
     public boolean existsByCardNumber(String cardNumber) {
-        return cardRepository.existsByCardNumber(cardNumber);
+        return cardRepository.existsByCardNumberHash(cardNumberHasher.hash(cardNumber))
+                || (!cardNumberHashBackfill.isComplete()
+                && cardRepository.existsByEncryptedCardNumber(cardNumberEncryptor.encrypt(cardNumber)));
     }
 
     @Override
     public boolean existsById(Long cardId) {
         return cardRepository.existsById(cardId);
     }
-}
\ No newline at end of file
+
+    private Card withShardedBalance(Card card) {
+        if (card.isSharded()) {
+            card.setShardedBalance(cardBalanceShards.balanceOf(card.getId()));
+        }
+        return card;
+    }
+}
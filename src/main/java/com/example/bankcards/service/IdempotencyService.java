@@ -0,0 +1,37 @@
+package com.example.bankcards.service;
+
+import org.springframework.lang.Nullable;
+
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    String HEADER = "Idempotency-Key";
+
+    /**
+     * Runs the action at most once per idempotency key of the current user.
+     * A repeated request with the same key and payload gets the stored response
+     * without running the action again.
+     * The key is completed in the same transaction as the action, so it is never left
+     * in progress after the action committed; a claim still in progress after the claim
+     * timeout belongs to a request that died first and is taken over.
+     *
+     * @param key client supplied idempotency key, or null to run the action unconditionally
+     * @param operation name of the operation, part of the request fingerprint
+     * @param fingerprint request data that must match for a key to be replayed
+     * @param responseType type of the stored response
+     * @param action operation to run
+     * @return response of the first successful execution
+     * @throws com.example.bankcards.exception.IdempotencyConflictException if the key was used for a
+     *         different request or the first request is still running
+     * @throws IllegalArgumentException if the key is blank or too long
+     */
+    <T> T execute(@Nullable String key, String operation, Object fingerprint, Class<T> responseType, Supplier<T> action);
+
+    /**
+     * Deletes keys older than the retention period.
+     *
+     * @return number of deleted keys
+     */
+    int purgeExpiredKeys();
+}
@@ -0,0 +1,232 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.IdempotencyKey;
+import com.example.bankcards.entity.IdempotencyStatus;
+import com.example.bankcards.exception.IdempotencyConflictException;
+import com.example.bankcards.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.lang.Nullable;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final SecurityService securityService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate requiresNewTransaction;
+    private final TransactionTemplate operationTransaction;
+    private final RetryTemplate operationRetry;
+    private final Cache<String, StoredResponse> recentResponses;
+    private final Duration retention;
+    private final Duration claimTimeout;
+
+    @Autowired
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  SecurityService securityService,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${app.idempotency.cache-size:10000}") long cacheSize,
+                                  @Value("${app.idempotency.cache-ttl:5m}") Duration cacheTtl,
+                                  @Value("${app.idempotency.retention:24h}") Duration retention,
+                                  @Value("${app.idempotency.claim-timeout:5m}") Duration claimTimeout,
+                                  @Value("${app.idempotency.retry.max-attempts:5}") int retryMaxAttempts,
+                                  @Value("${app.idempotency.retry.initial-delay:20}") long retryInitialDelay,
+                                  @Value("${app.idempotency.retry.multiplier:2}") double retryMultiplier,
+                                  @Value("${app.idempotency.retry.max-delay:200}") long retryMaxDelay) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.securityService = securityService;
+        this.objectMapper = objectMapper;
+        this.requiresNewTransaction = new TransactionTemplate(transactionManager);
+        this.requiresNewTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.operationTransaction = new TransactionTemplate(transactionManager);
+        this.operationRetry = RetryTemplate.builder()
+                .maxAttempts(retryMaxAttempts)
+                .exponentialBackoff(retryInitialDelay, retryMultiplier, retryMaxDelay, true)
+                .retryOn(ConcurrencyFailureException.class)
+                .traversingCauses()
+                .build();
+        this.recentResponses = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.retention = retention;
+        this.claimTimeout = claimTimeout;
+    }
+
+    @Override
+    public <T> T execute(@Nullable String key,
+                         String operation,
+                         Object fingerprint,
+                         Class<T> responseType,
+                         Supplier<T> action) {
+        if (key == null) {
+            return action.get();
+        }
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException(HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+        }
+
+        Long userId = securityService.getCurrentUserId();
+        String requestHash = hash(operation, fingerprint);
+        String cacheKey = userId + ":" + key;
+
+        StoredResponse cached = recentResponses.getIfPresent(cacheKey);
+        if (cached != null) {
+            return replay(cached, requestHash, responseType);
+        }
+
+        Long claimId = claim(userId, key, requestHash);
+        if (claimId == null) {
+            IdempotencyKey existing = idempotencyKeyRepository.findByUserIdAndKey(userId, key)
+                    .orElseThrow(() -> new IdempotencyConflictException(
+                            "A request with this idempotency key has just failed, please retry"));
+            if (existing.getStatus() == IdempotencyStatus.COMPLETED) {
+                StoredResponse stored = new StoredResponse(existing.getRequestHash(), existing.getResponseBody());
+                recentResponses.put(cacheKey, stored);
+                return replay(stored, requestHash, responseType);
+            }
+
+            claimId = reclaimIfStale(existing, requestHash);
+            if (claimId == null) {
+                checkFingerprint(existing.getRequestHash(), requestHash);
+                throw new IdempotencyConflictException("A request with this idempotency key is still in progress");
+            }
+        }
+
+        Long ownedClaimId = claimId;
+        Completion<T> completion;
+        try {
+            // The key is completed in the operation's own transaction, so it is COMPLETED exactly when
+            // the operation committed. The whole transaction is the unit retried on concurrency failures.
+            completion = operationRetry.execute(context -> operationTransaction.execute(status -> {
+                T result = action.get();
+                String responseBody = serialize(result);
+                idempotencyKeyRepository.complete(ownedClaimId, IdempotencyStatus.COMPLETED, responseBody);
+                return new Completion<>(result, responseBody);
+            }));
+        } catch (RuntimeException e) {
+            // Release the key so the client can retry a request that did not go through
+            requiresNewTransaction.executeWithoutResult(status -> idempotencyKeyRepository.deleteById(ownedClaimId));
+            throw e;
+        }
+
+        recentResponses.put(cacheKey, new StoredResponse(requestHash, completion.responseBody()));
+        return completion.response();
+    }
+
+    @Override
+    @Scheduled(fixedDelayString = "${app.idempotency.purge-interval:1h}")
+    public int purgeExpiredKeys() {
+        Integer deleted = requiresNewTransaction.execute(status ->
+                idempotencyKeyRepository.deleteCreatedBefore(LocalDateTime.now().minus(retention)));
+
+        if (deleted != null && deleted > 0) {
+            log.info("Purged {} expired idempotency keys", deleted);
+        }
+        return deleted == null ? 0 : deleted;
+    }
+
+    /**
+     * Takes over a key whose claim is older than the claim timeout. Such a claim can only be
+     * left by a request that died before its operation committed, since the completion is
+     * written in the same transaction as the operation.
+     */
+    @Nullable
+    private Long reclaimIfStale(IdempotencyKey existing, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        if (!existing.getCreatedAt().isBefore(now.minus(claimTimeout))) {
+            return null;
+        }
+
+        Integer reclaimed = requiresNewTransaction.execute(status -> idempotencyKeyRepository.reclaim(
+                existing.getId(), requestHash, now, now.minus(claimTimeout)));
+        if (reclaimed == null || reclaimed == 0) {
+            return null;
+        }
+        log.warn("Reclaimed idempotency key {} of user {} left in progress since {}",
+                existing.getKey(), existing.getUserId(), existing.getCreatedAt());
+        return existing.getId();
+    }
+
+    @Nullable
+    private Long claim(Long userId, String key, String requestHash) {
+        IdempotencyKey idempotencyKey = new IdempotencyKey();
+        idempotencyKey.setUserId(userId);
+        idempotencyKey.setKey(key);
+        idempotencyKey.setRequestHash(requestHash);
+        idempotencyKey.setStatus(IdempotencyStatus.IN_PROGRESS);
+
+        try {
+            return requiresNewTransaction.execute(status -> idempotencyKeyRepository.saveAndFlush(idempotencyKey).getId());
+        } catch (DataIntegrityViolationException e) {
+            return null;
+        }
+    }
+
+    private <T> T replay(StoredResponse stored, String requestHash, Class<T> responseType) {
+        checkFingerprint(stored.requestHash(), requestHash);
+
+        try {
+            return objectMapper.readValue(stored.responseBody(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response cannot be read", e);
+        }
+    }
+
+    private void checkFingerprint(String storedHash, String requestHash) {
+        if (!storedHash.equals(requestHash)) {
+            throw new IdempotencyConflictException("Idempotency key was already used for a different request");
+        }
+    }
+
+    private String hash(String operation, Object fingerprint) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ':');
+            digest.update(objectMapper.writeValueAsBytes(fingerprint));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("Error hashing idempotent request", e);
+        }
+    }
+
+    private String serialize(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Error storing idempotent response", e);
+        }
+    }
+
+    private record StoredResponse(String requestHash, String responseBody) {
+    }
+
+    private record Completion<T>(T response, String responseBody) {
+    }
+}
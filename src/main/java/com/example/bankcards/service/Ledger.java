@@ -0,0 +1,111 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.LedgerDirection;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Append-only double-entry ledger. Every money movement adds one debit and
+ * one credit entry in the same transaction as the balance change, so a card
+ * balance can always be derived from its entries; {@code cards.balance} is a
+ * cached projection of that sum.
+ * Entries must be written after the card rows are locked, which keeps the
+ * entry IDs of a card in commit order for incremental reconciliation.
+ * Cards and users with entries cannot be deleted, so the journal is never rewritten.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+public class Ledger {
+
+    private static final String INSERT_ENTRY = "INSERT INTO ledger_entries " +
+            "(card_id, direction, amount, reference_type, reference_id, created_at) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final int[] ENTRY_TYPES = {
+            Types.BIGINT, Types.VARCHAR, Types.NUMERIC, Types.VARCHAR, Types.BIGINT, Types.TIMESTAMP};
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    public Ledger(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Records a single movement.
+     *
+     * @param movement movement to record
+     */
+    public void record(LedgerMovement movement) {
+        record(List.of(movement));
+    }
+
+    /**
+     * Records movements with one JDBC batch.
+     *
+     * @param movements movements to record
+     */
+    public void record(List<LedgerMovement> movements) {
+        if (movements.isEmpty()) {
+            return;
+        }
+
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(movements.size() * 2);
+
+        for (LedgerMovement movement : movements) {
+            String referenceType = movement.referenceType().name();
+            rows.add(new Object[]{movement.debitCardId(), LedgerDirection.DEBIT.name(), movement.amount(),
+                    referenceType, movement.referenceId(), now});
+            rows.add(new Object[]{movement.creditCardId(), LedgerDirection.CREDIT.name(), movement.amount(),
+                    referenceType, movement.referenceId(), now});
+        }
+
+        jdbcTemplate.batchUpdate(INSERT_ENTRY, rows, ENTRY_TYPES);
+    }
+
+    /**
+     * Derives a card balance from its ledger entries.
+     *
+     * @param cardId card ID
+     * @return sum of credits minus sum of debits
+     */
+    public BigDecimal balanceOf(Long cardId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(CASE direction WHEN 'CREDIT' THEN amount ELSE -amount END), 0) " +
+                        "FROM ledger_entries WHERE card_id = ?",
+                BigDecimal.class, cardId);
+    }
+
+    /**
+     * Checks whether the card has ledger entries, which keep it from being deleted.
+     *
+     * @param cardId card ID
+     * @return true if any entry references the card
+     */
+    public boolean hasEntriesForCard(Long cardId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM ledger_entries WHERE card_id = ?)", Boolean.class, cardId));
+    }
+
+    /**
+     * Checks whether any card of the user has ledger entries, which keep the user from being deleted.
+     *
+     * @param userId user ID
+     * @return true if any entry references one of the user's cards
+     */
+    public boolean hasEntriesForUser(Long userId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM ledger_entries e JOIN cards c ON c.id = e.card_id WHERE c.user_id = ?)",
+                Boolean.class, userId));
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.entity.LedgerReferenceType;
+import org.springframework.lang.Nullable;
+
+import java.math.BigDecimal;
+
+/**
+ * One money movement, recorded in the ledger as a debit entry and a credit entry.
+ * A null card ID stands for the external account outside the bank.
+ *
+ * @param referenceType kind of movement
+ * @param referenceId ID of the transfer, transaction or card the movement belongs to
+ * @param debitCardId card the money leaves
+ * @param creditCardId card the money arrives at
+ * @param amount positive amount moved
+ */
+public record LedgerMovement(LedgerReferenceType referenceType,
+                             Long referenceId,
+                             @Nullable Long debitCardId,
+                             @Nullable Long creditCardId,
+                             BigDecimal amount) {
+
+    public static LedgerMovement transfer(Long transferId, Long fromCardId, Long toCardId, BigDecimal amount) {
+        return new LedgerMovement(LedgerReferenceType.TRANSFER, transferId, fromCardId, toCardId, amount);
+    }
+
+    public static LedgerMovement deposit(Long transactionId, Long cardId, BigDecimal amount) {
+        return new LedgerMovement(LedgerReferenceType.DEPOSIT, transactionId, null, cardId, amount);
+    }
+
+    public static LedgerMovement withdrawal(Long transactionId, Long cardId, BigDecimal amount) {
+        return new LedgerMovement(LedgerReferenceType.WITHDRAW, transactionId, cardId, null, amount);
+    }
+
+    public static LedgerMovement opening(Long cardId, BigDecimal amount) {
+        return new LedgerMovement(LedgerReferenceType.OPENING, cardId, null, cardId, amount);
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.bankcards.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Checks that {@code cards.balance} matches the ledger, incrementally.
+ * Each card has a checkpoint holding its reconciled balance and the last
+ * entry ID it covers, so a run only sums the entries added since then, and
+ * only for cards that received entries recently.
+ * The run happens in one REPEATABLE READ snapshot, so balances and entries
+ * are compared as of the same moment. Cards that do not match keep their
+ * old checkpoint and are reported again on the next run.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Slf4j
+@Component
+public class LedgerReconciliationJob {
+
+    private static final String RECONCILE_QUERY = """
+            SELECT c.id,
+                   c.balance + COALESCE((SELECT SUM(s.balance) FROM card_balance_shards s WHERE s.card_id = c.id), 0)
+                       AS balance,
+                   COALESCE(cp.balance, 0)
+                       + COALESCE(SUM(CASE e.direction WHEN 'CREDIT' THEN e.amount ELSE -e.amount END), 0) AS ledger_balance,
+                   COALESCE(MAX(e.id), cp.last_entry_id, 0) AS last_entry_id
+            FROM cards c
+            LEFT JOIN ledger_checkpoints cp ON cp.card_id = c.id
+            LEFT JOIN ledger_entries e ON e.card_id = c.id AND e.id > COALESCE(cp.last_entry_id, 0)
+            WHERE c.id IN (SELECT DISTINCT card_id FROM ledger_entries
+                           WHERE card_id IS NOT NULL
+                             AND id > (SELECT COALESCE(MAX(last_entry_id), 0) - ? FROM ledger_checkpoints))
+            GROUP BY c.id, c.balance, cp.balance, cp.last_entry_id
+            """;
+
+    private static final String UPSERT_CHECKPOINT = """
+            INSERT INTO ledger_checkpoints (card_id, last_entry_id, balance, reconciled_at)
+            VALUES (?, ?, ?, now())
+            ON CONFLICT (card_id) DO UPDATE
+            SET last_entry_id = EXCLUDED.last_entry_id, balance = EXCLUDED.balance, reconciled_at = EXCLUDED.reconciled_at
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate snapshotTransaction;
+    private final Counter mismatchCounter;
+    private final boolean enabled;
+    private final long lookbackEntries;
+
+    @Autowired
+    public LedgerReconciliationJob(JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${app.ledger.reconciliation.enabled:true}") boolean enabled,
+                                   @Value("${app.ledger.reconciliation.lookback-entries:10000}") long lookbackEntries) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.snapshotTransaction = new TransactionTemplate(transactionManager);
+        this.snapshotTransaction.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.mismatchCounter = Counter.builder("bank.ledger.reconciliation.mismatches")
+                .description("Cards whose cached balance differs from the ledger")
+                .register(meterRegistry);
+        this.enabled = enabled;
+        this.lookbackEntries = lookbackEntries;
+    }
+
+    @Scheduled(fixedDelayString = "${app.ledger.reconciliation.interval:5m}")
+    public void scheduledReconcile() {
+        if (enabled) {
+            reconcile();
+        }
+    }
+
+    /**
+     * Reconciles cards that received ledger entries since the latest checkpoints.
+     * The lookback window also covers entries whose transactions committed
+     * after entries with higher IDs.
+     *
+     * @return IDs of cards whose balance does not match the ledger
+     */
+    public List<Long> reconcile() {
+        List<Long> mismatched = snapshotTransaction.execute(status -> {
+            List<Long> cardIds = new ArrayList<>();
+            List<Object[]> checkpoints = new ArrayList<>();
+
+            jdbcTemplate.query(RECONCILE_QUERY, rs -> {
+                long cardId = rs.getLong("id");
+                BigDecimal balance = rs.getBigDecimal("balance");
+                BigDecimal ledgerBalance = rs.getBigDecimal("ledger_balance");
+
+                if (balance.compareTo(ledgerBalance) == 0) {
+                    checkpoints.add(new Object[]{cardId, rs.getLong("last_entry_id"), ledgerBalance});
+                } else {
+                    log.warn("Card {} balance {} does not match ledger balance {}", cardId, balance, ledgerBalance);
+                    cardIds.add(cardId);
+                }
+            }, lookbackEntries);
+
+            jdbcTemplate.batchUpdate(UPSERT_CHECKPOINT, checkpoints);
+            return cardIds;
+        });
+
+        mismatchCounter.increment(mismatched.size());
+        return mismatched;
+    }
+}
@@ -1,9 +1,13 @@
 package com.example.bankcards.service;
 
+import java.util.Collection;
+
 public interface SecurityService {
 
     void validateCardOwnership(Long cardId);
 
+    void validateCardsOwnership(Collection<Long> cardIds);
+
     void validateAdminAccess();
 
     void validateTransferAccess(Long transferId);
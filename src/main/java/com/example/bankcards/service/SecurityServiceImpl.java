@@ -1,30 +1,31 @@
 package com.example.bankcards.service;
 
-import com.example.bankcards.entity.Card;
 import com.example.bankcards.exception.BankSecurityException;
 import com.example.bankcards.exception.NotFoundException;
 import com.example.bankcards.repository.CardRepository;
 import com.example.bankcards.repository.TransferRepository;
-import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.security.UserPrincipal;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Service
 public class SecurityServiceImpl implements SecurityService {
 
-    private final UserRepository userRepository;
     private final CardRepository cardRepository;
     private final TransferRepository transferRepository;
     private final com.example.bankcards.repository.TransactionRepository transactionRepository;
 
     @Autowired
-    public SecurityServiceImpl(UserRepository userRepository,
-                               CardRepository cardRepository,
+    public SecurityServiceImpl(CardRepository cardRepository,
                                TransferRepository transferRepository,
                                com.example.bankcards.repository.TransactionRepository transactionRepository) {
-        this.userRepository = userRepository;
         this.cardRepository = cardRepository;
         this.transferRepository = transferRepository;
         this.transactionRepository = transactionRepository;
@@ -40,15 +41,28 @@ public class SecurityServiceImpl implements SecurityService {
 
     @Override
     public void validateCardOwnership(Long cardId) {
-        String currentUserEmail = getCurrentUserEmail();
-        Card card = cardRepository.findById(cardId)
+        Long ownerId = cardRepository.findOwnerIdById(cardId)
                 .orElseThrow(() -> new NotFoundException("Card", cardId));
 
-        if (!card.getUser().getEmail().equals(currentUserEmail)) {
+        if (!ownerId.equals(getCurrentUserId())) {
             throw new BankSecurityException("You don't own card with id: " + cardId);
         }
     }
 
+    @Override
+    public void validateCardsOwnership(Collection<Long> cardIds) {
+        Long currentUserId = getCurrentUserId();
+        Set<Long> distinctIds = new HashSet<>(cardIds);
+        List<Long> ownerIds = cardRepository.findOwnerIdsByIdIn(distinctIds);
+
+        if (ownerIds.size() < distinctIds.size()) {
+            throw new NotFoundException("One or more cards not found");
+        }
+        if (!ownerIds.stream().allMatch(currentUserId::equals)) {
+            throw new BankSecurityException("You don't own all of the requested cards");
+        }
+    }
+
     @Override
     public void validateAdminAccess() {
         if (!isAdmin()) {
@@ -82,21 +96,22 @@ public class SecurityServiceImpl implements SecurityService {
 
     @Override
     public Long getCurrentUserId() {
-        String email = getCurrentUserEmail();
-
-        return userRepository.findByEmail(email)
-                .orElseThrow(() -> new NotFoundException("User not found with email:" + email))
-                .getId();
+        return getCurrentPrincipal().getId();
     }
 
     @Override
     public String getCurrentUserEmail() {
+        return getCurrentPrincipal().getEmail();
+    }
+
+    private UserPrincipal getCurrentPrincipal() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
-        if (authentication == null || !authentication.isAuthenticated()) {
+        if (authentication == null || !authentication.isAuthenticated()
+                || !(authentication.getPrincipal() instanceof UserPrincipal principal)) {
             throw new BankSecurityException("User not authenticated");
         }
 
-        return authentication.getName();
+        return principal;
     }
 }
\ No newline at end of file
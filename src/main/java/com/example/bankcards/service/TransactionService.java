@@ -1,9 +1,11 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransactionDTO;
 import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.entity.TransactionType;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.lang.Nullable;
 
 import java.math.BigDecimal;
@@ -36,14 +38,38 @@ public interface TransactionService {
      * @param startDate transaction start date (can be null)
      * @param endDate transaction end date (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of all transactions
      */
-    Page<Transaction> getAllTransactions(@Nullable Long userId,
-                                         @Nullable Long cardId,
-                                         @Nullable TransactionType transactionType,
-                                         @Nullable LocalDateTime startDate,
-                                         @Nullable LocalDateTime endDate,
-                                         Pageable pageable);
+    Slice<TransactionDTO> getAllTransactions(@Nullable Long userId,
+                                             @Nullable Long cardId,
+                                             @Nullable TransactionType transactionType,
+                                             @Nullable LocalDateTime startDate,
+                                             @Nullable LocalDateTime endDate,
+                                             Pageable pageable,
+                                             boolean withTotal);
+
+    /**
+     * Gets all transactions in the system with keyset pagination ordered by creation time.
+     * Deep pages cost the same as the first one and no total is computed.
+     *
+     * @param userId user identifier for filtering (can be null)
+     * @param cardId card identifier for filtering (can be null)
+     * @param transactionType transaction type for filtering (can be null)
+     * @param startDate transaction start date (can be null)
+     * @param endDate transaction end date (can be null)
+     * @param cursor next cursor of the previous page (null for the first page)
+     * @param size maximum number of transactions
+     * @return transactions and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed or size is out of range
+     */
+    CursorPage<TransactionDTO> getAllTransactionsAfter(@Nullable Long userId,
+                                                       @Nullable Long cardId,
+                                                       @Nullable TransactionType transactionType,
+                                                       @Nullable LocalDateTime startDate,
+                                                       @Nullable LocalDateTime endDate,
+                                                       @Nullable String cursor,
+                                                       int size);
 
     /**
      * Gets transactions for a specific user with filtering.
@@ -54,14 +80,16 @@ public interface TransactionService {
      * @param startDate transaction start date (can be null)
      * @param endDate transaction end date (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of user transactions
      */
-    Page<Transaction> getUserTransactions(Long userId,
-                                         @Nullable Long cardId,
-                                         @Nullable TransactionType transactionType,
-                                         @Nullable LocalDateTime startDate,
-                                         @Nullable LocalDateTime endDate,
-                                         Pageable pageable);
+    Slice<TransactionDTO> getUserTransactions(Long userId,
+                                              @Nullable Long cardId,
+                                              @Nullable TransactionType transactionType,
+                                              @Nullable LocalDateTime startDate,
+                                              @Nullable LocalDateTime endDate,
+                                              Pageable pageable,
+                                              boolean withTotal);
 
     /**
      * Deposits money to a card.
@@ -82,6 +110,7 @@ public interface TransactionService {
      * @return created withdrawal transaction
      * @throws com.example.bankcards.exception.NotFoundException if card not found
      * @throws com.example.bankcards.exception.InsufficientFundsException if insufficient funds
+     * @throws IllegalStateException if card is not active
      * @throws IllegalArgumentException if amount is invalid
      */
     Transaction withdraw(Long cardId, BigDecimal amount);
@@ -1,35 +1,53 @@
 package com.example.bankcards.service;
 
-import com.example.bankcards.entity.Card;
+import com.example.bankcards.config.RetryConfig;
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransactionDTO;
 import com.example.bankcards.entity.Transaction;
 import com.example.bankcards.entity.TransactionType;
 import com.example.bankcards.exception.NotFoundException;
-import com.example.bankcards.exception.InsufficientFundsException;
 import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ProjectionRepository;
 import com.example.bankcards.repository.TransactionRepository;
+import com.example.bankcards.util.CursorUtils;
+import com.example.bankcards.util.TransactionUtils;
 import com.example.bankcards.util.specifications.TransactionSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.Nullable;
+import org.springframework.retry.annotation.Retryable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class TransactionServiceImpl implements TransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final ProjectionRepository projectionRepository;
     private final CardRepository cardRepository;
+    private final CardBalanceOperations cardBalanceOperations;
+    private final Ledger ledger;
+    private final UserBalanceCache userBalanceCache;
 
     @Autowired
     public TransactionServiceImpl(TransactionRepository transactionRepository,
-                                 CardRepository cardRepository) {
+                                  ProjectionRepository projectionRepository,
+                                 CardRepository cardRepository,
+                                 CardBalanceOperations cardBalanceOperations,
+                                 Ledger ledger,
+                                 UserBalanceCache userBalanceCache) {
         this.transactionRepository = transactionRepository;
+        this.projectionRepository = projectionRepository;
         this.cardRepository = cardRepository;
+        this.cardBalanceOperations = cardBalanceOperations;
+        this.ledger = ledger;
+        this.userBalanceCache = userBalanceCache;
     }
 
     @Override
@@ -39,64 +57,86 @@ public class TransactionServiceImpl implements TransactionService {
     }
 
     @Override
-    public Page<Transaction> getAllTransactions(@Nullable Long userId,
-                                               @Nullable Long cardId,
-                                               @Nullable TransactionType transactionType,
-                                               @Nullable LocalDateTime startDate,
-                                               @Nullable LocalDateTime endDate,
-                                               Pageable pageable) {
-        Specification<Transaction> spec = Specification
-                .where(TransactionSpecifications.hasUserId(userId))
-                .and(TransactionSpecifications.hasCardId(cardId))
-                .and(TransactionSpecifications.hasTransactionType(transactionType))
-                .and(TransactionSpecifications.createdAtBetween(startDate, endDate));
-
-        return transactionRepository.findAll(spec, pageable);
+    @Transactional(readOnly = true)
+    public Slice<TransactionDTO> getAllTransactions(@Nullable Long userId,
+                                                    @Nullable Long cardId,
+                                                    @Nullable TransactionType transactionType,
+                                                    @Nullable LocalDateTime startDate,
+                                                    @Nullable LocalDateTime endDate,
+                                                    Pageable pageable,
+                                                    boolean withTotal) {
+        Specification<Transaction> spec = transactionsSpec(userId, cardId, transactionType, startDate, endDate);
+
+        return projectionRepository.findAll(Transaction.class, spec, pageable, withTotal, TransactionUtils.PROJECTION);
     }
 
     @Override
-    public Page<Transaction> getUserTransactions(Long userId,
-                                                 @Nullable Long cardId,
-                                                 @Nullable TransactionType transactionType,
-                                                 @Nullable LocalDateTime startDate,
-                                                 @Nullable LocalDateTime endDate,
-                                                 Pageable pageable) {
-        Specification<Transaction> spec = Specification
-                .where(TransactionSpecifications.hasUserId(userId))
-                .and(TransactionSpecifications.hasCardId(cardId))
-                .and(TransactionSpecifications.hasTransactionType(transactionType))
-                .and(TransactionSpecifications.createdAtBetween(startDate, endDate));
+    @Transactional(readOnly = true)
+    public CursorPage<TransactionDTO> getAllTransactionsAfter(@Nullable Long userId,
+                                                              @Nullable Long cardId,
+                                                              @Nullable TransactionType transactionType,
+                                                              @Nullable LocalDateTime startDate,
+                                                              @Nullable LocalDateTime endDate,
+                                                              @Nullable String cursor,
+                                                              int size) {
+        CursorUtils.validateSize(size);
+        Specification<Transaction> spec = transactionsSpec(userId, cardId, transactionType, startDate, endDate);
+
+        return projectionRepository.findAfter(Transaction.class, spec, CursorUtils.decode(cursor), size,
+                TransactionUtils.PROJECTION, dto -> new CursorUtils.Position(dto.getCreatedAt(), dto.getId()));
+    }
 
-        return transactionRepository.findAll(spec, pageable);
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<TransactionDTO> getUserTransactions(Long userId,
+                                                     @Nullable Long cardId,
+                                                     @Nullable TransactionType transactionType,
+                                                     @Nullable LocalDateTime startDate,
+                                                     @Nullable LocalDateTime endDate,
+                                                     Pageable pageable,
+                                                     boolean withTotal) {
+        Specification<Transaction> spec = transactionsSpec(userId, cardId, transactionType, startDate, endDate);
+
+        return projectionRepository.findAll(Transaction.class, spec, pageable, withTotal, TransactionUtils.PROJECTION);
     }
 
     @Override
+    @Retryable(interceptor = RetryConfig.OPTIMISTIC_LOCK_RETRY_INTERCEPTOR)
     @Transactional
     public Transaction deposit(Long cardId, BigDecimal amount) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new NotFoundException("Card", cardId));
+        Long ownerId = cardBalanceOperations.credit(cardId, amount).userId();
 
-        card.setBalance(card.getBalance().add(amount));
-        cardRepository.save(card);
+        Transaction transaction = transactionRepository.save(
+                new Transaction(cardRepository.getReferenceById(cardId), TransactionType.DEPOSIT, amount));
+        ledger.record(LedgerMovement.deposit(transaction.getId(), cardId, amount));
+        userBalanceCache.evictAfterCommit(List.of(ownerId));
 
-        Transaction transaction = new Transaction(card, TransactionType.DEPOSIT, amount);
-        return transactionRepository.save(transaction);
+        return transaction;
     }
 
     @Override
+    @Retryable(interceptor = RetryConfig.OPTIMISTIC_LOCK_RETRY_INTERCEPTOR)
     @Transactional
     public Transaction withdraw(Long cardId, BigDecimal amount) {
-        Card card = cardRepository.findById(cardId)
-                .orElseThrow(() -> new NotFoundException("Card", cardId));
+        Long ownerId = cardBalanceOperations.debit(cardId, amount, "Insufficient funds for withdrawal").userId();
 
-        if (card.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException("Insufficient funds for withdrawal");
-        }
+        Transaction transaction = transactionRepository.save(
+                new Transaction(cardRepository.getReferenceById(cardId), TransactionType.WITHDRAW, amount));
+        ledger.record(LedgerMovement.withdrawal(transaction.getId(), cardId, amount));
+        userBalanceCache.evictAfterCommit(List.of(ownerId));
 
-        card.setBalance(card.getBalance().subtract(amount));
-        cardRepository.save(card);
+        return transaction;
+    }
 
-        Transaction transaction = new Transaction(card, TransactionType.WITHDRAW, amount);
-        return transactionRepository.save(transaction);
+    private static Specification<Transaction> transactionsSpec(@Nullable Long userId,
+                                                               @Nullable Long cardId,
+                                                               @Nullable TransactionType transactionType,
+                                                               @Nullable LocalDateTime startDate,
+                                                               @Nullable LocalDateTime endDate) {
+        return Specification
+                .where(TransactionSpecifications.hasUserId(userId))
+                .and(TransactionSpecifications.hasCardId(cardId))
+                .and(TransactionSpecifications.hasTransactionType(transactionType))
+                .and(TransactionSpecifications.createdAtBetween(startDate, endDate));
     }
-}
\ No newline at end of file
+}
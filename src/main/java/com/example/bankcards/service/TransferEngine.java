@@ -0,0 +1,305 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.config.RetryConfig;
+import com.example.bankcards.dto.BatchTransferItemResult;
+import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import com.example.bankcards.exception.InsufficientFundsException;
+import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.exception.TransferValidationException;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.service.CardBalanceOperations.UpdatedCard;
+import com.example.bankcards.util.TransferUtils;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.retry.RetryContext;
+import org.springframework.retry.annotation.Backoff;
+import org.springframework.retry.annotation.Retryable;
+import org.springframework.retry.support.RetrySynchronizationManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Moves money between two cards with conditional UPDATE statements.
+ * Each UPDATE takes the row lock of its card, and the two rows are always
+ * updated in ascending id order, so opposite transfers between the same pair
+ * of cards queue up instead of deadlocking.
+ * Lock timeouts, deadlocks and serialization failures are retried with a bounded,
+ * jittered exponential backoff, each attempt in a new transaction. When called inside
+ * a caller's transaction, failures are left to the caller to retry.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+public class TransferEngine {
+
+    private final CardRepository cardRepository;
+    private final CardBalanceOperations cardBalanceOperations;
+    private final TransferRepository transferRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final Ledger ledger;
+    private final CardBalanceShards cardBalanceShards;
+    private final UserBalanceCache userBalanceCache;
+    private final Timer lockWaitTimer;
+    private final Counter retryCounter;
+
+    @Autowired
+    public TransferEngine(CardRepository cardRepository,
+                          CardBalanceOperations cardBalanceOperations,
+                          TransferRepository transferRepository,
+                          JdbcTemplate jdbcTemplate,
+                          Ledger ledger,
+                          CardBalanceShards cardBalanceShards,
+                          UserBalanceCache userBalanceCache,
+                          MeterRegistry meterRegistry) {
+        this.cardRepository = cardRepository;
+        this.cardBalanceOperations = cardBalanceOperations;
+        this.transferRepository = transferRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledger = ledger;
+        this.cardBalanceShards = cardBalanceShards;
+        this.userBalanceCache = userBalanceCache;
+        this.lockWaitTimer = Timer.builder("bank.transfer.lock.wait")
+                .description("Time spent in transfer balance updates, including row lock waits")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.retryCounter = Counter.builder("bank.transfer.retries")
+                .description("Transfer attempts repeated after a concurrency failure")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Transfers the amount from one card to another.
+     *
+     * @param fromCardId source card ID
+     * @param toCardId destination card ID
+     * @param amount amount to transfer
+     * @return completed transfer, built from the updated rows without reading the cards back
+     * @throws NotFoundException if either card does not exist
+     * @throws IllegalStateException if the source card is not active
+     * @throws InsufficientFundsException if the source card balance is too low
+     * @throws TransferValidationException if both IDs refer to the same card
+     */
+    @Retryable(retryFor = ConcurrencyFailureException.class,
+            exceptionExpression = RetryConfig.OUTSIDE_CALLER_TRANSACTION,
+            maxAttemptsExpression = "${app.transfer.retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.transfer.retry.initial-delay:20}",
+                    multiplierExpression = "${app.transfer.retry.multiplier:2}",
+                    maxDelayExpression = "${app.transfer.retry.max-delay:200}",
+                    random = true))
+    @Transactional
+    public TransferDTO transfer(Long fromCardId, Long toCardId, BigDecimal amount) {
+        if (fromCardId.equals(toCardId)) {
+            throw new TransferValidationException("Cannot transfer to the same card");
+        }
+
+        countRetry();
+
+        Map<Long, UpdatedCard> cards = lockWaitTimer.record(() -> {
+            Map<Long, UpdatedCard> updated = new HashMap<>();
+            if (fromCardId < toCardId) {
+                updated.put(fromCardId, cardBalanceOperations.debit(fromCardId, amount, "Insufficient funds"));
+                updated.put(toCardId, cardBalanceOperations.credit(toCardId, amount));
+            } else {
+                updated.put(toCardId, cardBalanceOperations.credit(toCardId, amount));
+                updated.put(fromCardId, cardBalanceOperations.debit(fromCardId, amount, "Insufficient funds"));
+            }
+            return updated;
+        });
+        UpdatedCard fromCard = cards.get(fromCardId);
+        UpdatedCard toCard = cards.get(toCardId);
+
+        Transfer transfer = transferRepository.save(new Transfer(
+                cardRepository.getReferenceById(fromCardId), cardRepository.getReferenceById(toCardId),
+                fromCard.userId(), toCard.userId(), amount, TransferStatus.COMPLETED));
+        ledger.record(LedgerMovement.transfer(transfer.getId(), fromCardId, toCardId, amount));
+        userBalanceCache.evictAfterCommit(List.of(fromCard.userId(), toCard.userId()));
+
+        return TransferUtils.toDTO(transfer, fromCard.cardLast4(), toCard.cardLast4());
+    }
+
+    /**
+     * Applies a batch of transfers in one transaction.
+     * All affected cards are locked with a single {@code SELECT ... FOR UPDATE}
+     * in id order, the transfers are checked against the locked balances in
+     * request order, and the resulting balances and transfer rows are written
+     * with JDBC batches.
+     *
+     * @param requests transfers to apply
+     * @param atomic whether a single failed transfer rejects the whole batch
+     * @return one result per request, in request order
+     * @throws TransferValidationException if the batch is atomic and a transfer fails
+     */
+    @Retryable(retryFor = ConcurrencyFailureException.class,
+            exceptionExpression = RetryConfig.OUTSIDE_CALLER_TRANSACTION,
+            maxAttemptsExpression = "${app.transfer.retry.max-attempts:5}",
+            backoff = @Backoff(delayExpression = "${app.transfer.retry.initial-delay:20}",
+                    multiplierExpression = "${app.transfer.retry.multiplier:2}",
+                    maxDelayExpression = "${app.transfer.retry.max-delay:200}",
+                    random = true))
+    @Transactional
+    public List<BatchTransferItemResult> transferBatch(List<TransferRequest> requests, boolean atomic) {
+        countRetry();
+
+        Map<Long, LockedCard> cards = lockWaitTimer.record(() -> lockCards(requests));
+
+        BatchTransferItemResult[] results = new BatchTransferItemResult[requests.size()];
+        List<Integer> accepted = new ArrayList<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            TransferRequest request = requests.get(i);
+            String error = apply(request, cards);
+
+            if (error == null) {
+                accepted.add(i);
+            } else if (atomic) {
+                throw new TransferValidationException("Transfer #" + i + " failed: " + error);
+            } else {
+                results[i] = new BatchTransferItemResult(i, null, request.getFromCardId(), request.getToCardId(),
+                        request.getAmount(), TransferStatus.FAILED, error);
+            }
+        }
+
+        if (!accepted.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            writeBalances(cards, now);
+
+            List<Long> transferIds = jdbcTemplate.queryForList(
+                    "SELECT nextval(pg_get_serial_sequence('transfers', 'id')) FROM generate_series(1, ?)",
+                    Long.class, accepted.size());
+            List<Object[]> rows = new ArrayList<>(accepted.size());
+            List<LedgerMovement> movements = new ArrayList<>(accepted.size());
+
+            for (int j = 0; j < accepted.size(); j++) {
+                int i = accepted.get(j);
+                TransferRequest request = requests.get(i);
+                Long transferId = transferIds.get(j);
+
+                rows.add(new Object[]{transferId, request.getFromCardId(), request.getToCardId(),
+                        cards.get(request.getFromCardId()).userId, cards.get(request.getToCardId()).userId,
+                        request.getAmount(), TransferStatus.COMPLETED.name(), now});
+                movements.add(LedgerMovement.transfer(
+                        transferId, request.getFromCardId(), request.getToCardId(), request.getAmount()));
+                results[i] = new BatchTransferItemResult(i, transferId, request.getFromCardId(), request.getToCardId(),
+                        request.getAmount(), TransferStatus.COMPLETED, null);
+            }
+
+            jdbcTemplate.batchUpdate("INSERT INTO transfers " +
+                    "(id, from_card_id, to_card_id, from_user_id, to_user_id, amount, status, created_at) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, ?)", rows);
+            ledger.record(movements);
+            userBalanceCache.evictAfterCommit(cards.values().stream()
+                    .filter(card -> card.changed)
+                    .map(card -> card.userId)
+                    .toList());
+        }
+
+        return Arrays.asList(results);
+    }
+
+    private Map<Long, LockedCard> lockCards(List<TransferRequest> requests) {
+        Long[] cardIds = requests.stream()
+                .flatMap(request -> Stream.of(request.getFromCardId(), request.getToCardId()))
+                .distinct()
+                .toArray(Long[]::new);
+        String placeholders = String.join(", ", Collections.nCopies(cardIds.length, "?"));
+
+        Map<Long, LockedCard> cards = new HashMap<>();
+        List<Long> shardedCardIds = new ArrayList<>();
+        jdbcTemplate.query("SELECT id, user_id, balance, status, balance_shards FROM cards " +
+                        "WHERE id IN (" + placeholders + ") ORDER BY id FOR UPDATE",
+                rs -> {
+                    cards.put(rs.getLong("id"),
+                            new LockedCard(rs.getLong("user_id"), rs.getBigDecimal("balance"),
+                                    CardStatus.valueOf(rs.getString("status"))));
+                    if (rs.getInt("balance_shards") > 1) {
+                        shardedCardIds.add(rs.getLong("id"));
+                    }
+                },
+                (Object[]) cardIds);
+
+        // Balances of sharded cards are only complete once their shards are folded into the locked row
+        for (Long cardId : shardedCardIds) {
+            LockedCard card = cards.get(cardId);
+            card.balance = card.balance.add(cardBalanceShards.consolidate(cardId));
+        }
+        return cards;
+    }
+
+    private String apply(TransferRequest request, Map<Long, LockedCard> cards) {
+        if (request.getFromCardId().equals(request.getToCardId())) {
+            return "Cannot transfer to the same card";
+        }
+
+        LockedCard fromCard = cards.get(request.getFromCardId());
+        LockedCard toCard = cards.get(request.getToCardId());
+
+        if (fromCard == null) {
+            return "Card not found with id: " + request.getFromCardId();
+        }
+        if (toCard == null) {
+            return "Card not found with id: " + request.getToCardId();
+        }
+        if (fromCard.status != CardStatus.ACTIVE) {
+            return "Card is not active";
+        }
+        if (fromCard.balance.compareTo(request.getAmount()) < 0) {
+            return "Insufficient funds";
+        }
+
+        fromCard.balance = fromCard.balance.subtract(request.getAmount());
+        fromCard.changed = true;
+        toCard.balance = toCard.balance.add(request.getAmount());
+        toCard.changed = true;
+        return null;
+    }
+
+    private void writeBalances(Map<Long, LockedCard> cards, LocalDateTime now) {
+        List<Object[]> rows = cards.entrySet().stream()
+                .filter(entry -> entry.getValue().changed)
+                .map(entry -> new Object[]{entry.getValue().balance, now, entry.getKey()})
+                .toList();
+
+        jdbcTemplate.batchUpdate("UPDATE cards SET balance = ?, version = version + 1, updated_at = ? WHERE id = ?", rows);
+    }
+
+    private void countRetry() {
+        RetryContext context = RetrySynchronizationManager.getContext();
+        if (context != null && context.getRetryCount() > 0) {
+            retryCounter.increment();
+        }
+    }
+
+    private static class LockedCard {
+
+        private final Long userId;
+        private BigDecimal balance;
+        private final CardStatus status;
+        private boolean changed;
+
+        private LockedCard(Long userId, BigDecimal balance, CardStatus status) {
+            this.userId = userId;
+            this.balance = balance;
+            this.status = status;
+        }
+    }
+}
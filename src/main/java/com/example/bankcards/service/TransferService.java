@@ -1,10 +1,14 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransferDTO;
 import com.example.bankcards.dto.TransferRequest;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.TransferStatus;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.lang.Nullable;
 
 import java.math.BigDecimal;
@@ -37,14 +41,16 @@ public interface TransferService {
      * @param startDate transfer start date (can be null)
      * @param endDate transfer end date (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of user transfers
      */
-    Page<Transfer> getTransfersByUserId(Long userId,
-                                        @Nullable Long cardId,
-                                        @Nullable TransferStatus status,
-                                        @Nullable LocalDateTime startDate,
-                                        @Nullable LocalDateTime endDate,
-                                        Pageable pageable);
+    Slice<TransferDTO> getTransfersByUserId(Long userId,
+                                            @Nullable Long cardId,
+                                            @Nullable TransferStatus status,
+                                            @Nullable LocalDateTime startDate,
+                                            @Nullable LocalDateTime endDate,
+                                            Pageable pageable,
+                                            boolean withTotal);
 
     /**
      * Gets all transfers in the system with filtering.
@@ -57,16 +63,44 @@ public interface TransferService {
      * @param minAmount minimum transfer amount (can be null)
      * @param maxAmount maximum transfer amount (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of all transfers
      */
-    Page<Transfer> getAllTransfers(@Nullable Long userId,
-                                   @Nullable Long cardId,
-                                   @Nullable TransferStatus status,
-                                   @Nullable LocalDateTime startDate,
-                                   @Nullable LocalDateTime endDate,
-                                   @Nullable BigDecimal minAmount,
-                                   @Nullable BigDecimal maxAmount,
-                                   Pageable pageable);
+    Slice<TransferDTO> getAllTransfers(@Nullable Long userId,
+                                       @Nullable Long cardId,
+                                       @Nullable TransferStatus status,
+                                       @Nullable LocalDateTime startDate,
+                                       @Nullable LocalDateTime endDate,
+                                       @Nullable BigDecimal minAmount,
+                                       @Nullable BigDecimal maxAmount,
+                                       Pageable pageable,
+                                       boolean withTotal);
+
+    /**
+     * Gets all transfers in the system with keyset pagination ordered by creation time.
+     * Deep pages cost the same as the first one and no total is computed.
+     *
+     * @param userId user identifier for filtering (can be null)
+     * @param cardId card identifier for filtering (can be null)
+     * @param status transfer status for filtering (can be null)
+     * @param startDate transfer start date (can be null)
+     * @param endDate transfer end date (can be null)
+     * @param minAmount minimum transfer amount (can be null)
+     * @param maxAmount maximum transfer amount (can be null)
+     * @param cursor next cursor of the previous page (null for the first page)
+     * @param size maximum number of transfers
+     * @return transfers and the cursor of the next page
+     * @throws IllegalArgumentException if the cursor is malformed or size is out of range
+     */
+    CursorPage<TransferDTO> getAllTransfersAfter(@Nullable Long userId,
+                                                 @Nullable Long cardId,
+                                                 @Nullable TransferStatus status,
+                                                 @Nullable LocalDateTime startDate,
+                                                 @Nullable LocalDateTime endDate,
+                                                 @Nullable BigDecimal minAmount,
+                                                 @Nullable BigDecimal maxAmount,
+                                                 @Nullable String cursor,
+                                                 int size);
 
     /**
      * Creates a new money transfer between cards.
@@ -75,7 +109,17 @@ public interface TransferService {
      * @return created transfer
      * @throws com.example.bankcards.exception.NotFoundException if source or destination card not found
      * @throws com.example.bankcards.exception.InsufficientFundsException if insufficient funds
+     * @throws IllegalStateException if source card is not active
      * @throws com.example.bankcards.exception.TransferValidationException if transfer validation fails
      */
-    Transfer createTransfer(TransferRequest request);
-}
\ No newline at end of file
+    TransferDTO createTransfer(TransferRequest request);
+
+    /**
+     * Applies a batch of transfers in a single transaction.
+     *
+     * @param request batch of transfers and its failure semantics
+     * @return per-transfer results in request order
+     * @throws com.example.bankcards.exception.TransferValidationException if the batch is atomic and a transfer fails
+     */
+    BatchTransferResponse createTransfers(BatchTransferRequest request);
+}
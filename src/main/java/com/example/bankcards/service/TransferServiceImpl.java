@@ -1,16 +1,23 @@
 package com.example.bankcards.service;
 
+import com.example.bankcards.dto.BatchTransferItemResult;
+import com.example.bankcards.dto.BatchTransferRequest;
+import com.example.bankcards.dto.BatchTransferResponse;
+import com.example.bankcards.dto.CursorPage;
+import com.example.bankcards.dto.TransferDTO;
 import com.example.bankcards.dto.TransferRequest;
-import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.TransferStatus;
 import com.example.bankcards.exception.NotFoundException;
-import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.repository.ProjectionRepository;
 import com.example.bankcards.repository.TransferRepository;
+import com.example.bankcards.repository.UserTransferRepository;
+import com.example.bankcards.util.CursorUtils;
+import com.example.bankcards.util.TransferUtils;
 import com.example.bankcards.util.specifications.TransferSpecifications;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.Nullable;
 import org.springframework.stereotype.Service;
@@ -18,18 +25,25 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Service
 public class TransferServiceImpl implements TransferService {
 
     public final TransferRepository transferRepository;
-    public final CardRepository cardRepository;
+    public final ProjectionRepository projectionRepository;
+    public final UserTransferRepository userTransferRepository;
+    public final TransferEngine transferEngine;
 
     @Autowired
     public TransferServiceImpl(TransferRepository transferRepository,
-                               CardRepository cardRepository) {
+                               ProjectionRepository projectionRepository,
+                               UserTransferRepository userTransferRepository,
+                               TransferEngine transferEngine) {
         this.transferRepository = transferRepository;
-        this.cardRepository = cardRepository;
+        this.projectionRepository = projectionRepository;
+        this.userTransferRepository = userTransferRepository;
+        this.transferEngine = transferEngine;
     }
 
     @Override
@@ -39,62 +53,89 @@ public class TransferServiceImpl implements TransferService {
     }
 
     @Override
-    @Transactional
-    public Transfer createTransfer(TransferRequest request) {
-        Card fromCard = cardRepository.findById(request.getFromCardId())
-                .orElseThrow(() -> new NotFoundException("Card", request.getFromCardId()));
-        Card toCard = cardRepository.findById(request.getToCardId())
-                .orElseThrow(() -> new NotFoundException("Card", request.getToCardId()));
-
-        if (fromCard.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new IllegalArgumentException("Insufficient funds");
-        }
-
-        Transfer transfer = new Transfer(fromCard, toCard, request.getAmount(), TransferStatus.PENDING);
-
-        fromCard.setBalance(fromCard.getBalance().subtract(request.getAmount()));
-        toCard.setBalance(toCard.getBalance().add(request.getAmount()));
+    public TransferDTO createTransfer(TransferRequest request) {
+        return transferEngine.transfer(request.getFromCardId(), request.getToCardId(), request.getAmount());
+    }
 
-        cardRepository.save(fromCard);
-        cardRepository.save(toCard);
+    @Override
+    public BatchTransferResponse createTransfers(BatchTransferRequest request) {
+        List<BatchTransferItemResult> results = transferEngine.transferBatch(request.getTransfers(), request.isAtomic());
 
-        transfer.setStatus(TransferStatus.COMPLETED);
+        int completed = (int) results.stream()
+                .filter(result -> result.getStatus() == TransferStatus.COMPLETED)
+                .count();
 
-        return transferRepository.save(transfer);
+        return new BatchTransferResponse(completed, results.size() - completed, results);
     }
 
     @Override
-    public Page<Transfer> getTransfersByUserId(Long userId,
-                                               @Nullable Long cardId,
-                                               @Nullable TransferStatus status,
-                                               @Nullable LocalDateTime startDate,
-                                               @Nullable LocalDateTime endDate,
-                                               Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Slice<TransferDTO> getTransfersByUserId(Long userId,
+                                                   @Nullable Long cardId,
+                                                   @Nullable TransferStatus status,
+                                                   @Nullable LocalDateTime startDate,
+                                                   @Nullable LocalDateTime endDate,
+                                                   Pageable pageable,
+                                                   boolean withTotal) {
+        if (UserTransferRepository.supports(pageable)) {
+            return userTransferRepository.findByUserId(userId, cardId, status, startDate, endDate, pageable, withTotal);
+        }
+
         Specification<Transfer> spec = Specification
                 .where(TransferSpecifications.hasUserId(userId))
                 .and(TransferSpecifications.hasCardId(cardId))
                 .and(TransferSpecifications.hasStatus(status))
                 .and(TransferSpecifications.createdAtBetween(startDate, endDate));
 
-        return transferRepository.findAll(spec, pageable);
+        return projectionRepository.findAll(Transfer.class, spec, pageable, withTotal, TransferUtils.PROJECTION);
     }
 
     @Override
-    public Page<Transfer> getAllTransfers(@Nullable Long userId,
-                                          @Nullable Long cardId,
-                                          @Nullable TransferStatus status,
-                                          @Nullable LocalDateTime startDate,
-                                          @Nullable LocalDateTime endDate,
-                                          @Nullable BigDecimal minAmount,
-                                          @Nullable BigDecimal maxAmount,
-                                          Pageable pageable) {
-        Specification<Transfer> spec = Specification
+    @Transactional(readOnly = true)
+    public Slice<TransferDTO> getAllTransfers(@Nullable Long userId,
+                                              @Nullable Long cardId,
+                                              @Nullable TransferStatus status,
+                                              @Nullable LocalDateTime startDate,
+                                              @Nullable LocalDateTime endDate,
+                                              @Nullable BigDecimal minAmount,
+                                              @Nullable BigDecimal maxAmount,
+                                              Pageable pageable,
+                                              boolean withTotal) {
+        Specification<Transfer> spec = allTransfersSpec(userId, cardId, status, startDate, endDate, minAmount, maxAmount);
+
+        return projectionRepository.findAll(Transfer.class, spec, pageable, withTotal, TransferUtils.PROJECTION);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public CursorPage<TransferDTO> getAllTransfersAfter(@Nullable Long userId,
+                                                        @Nullable Long cardId,
+                                                        @Nullable TransferStatus status,
+                                                        @Nullable LocalDateTime startDate,
+                                                        @Nullable LocalDateTime endDate,
+                                                        @Nullable BigDecimal minAmount,
+                                                        @Nullable BigDecimal maxAmount,
+                                                        @Nullable String cursor,
+                                                        int size) {
+        CursorUtils.validateSize(size);
+        Specification<Transfer> spec = allTransfersSpec(userId, cardId, status, startDate, endDate, minAmount, maxAmount);
+
+        return projectionRepository.findAfter(Transfer.class, spec, CursorUtils.decode(cursor), size,
+                TransferUtils.PROJECTION, dto -> new CursorUtils.Position(dto.getCreatedAt(), dto.getId()));
+    }
+
+    private static Specification<Transfer> allTransfersSpec(@Nullable Long userId,
+                                                            @Nullable Long cardId,
+                                                            @Nullable TransferStatus status,
+                                                            @Nullable LocalDateTime startDate,
+                                                            @Nullable LocalDateTime endDate,
+                                                            @Nullable BigDecimal minAmount,
+                                                            @Nullable BigDecimal maxAmount) {
+        return Specification
                 .where(TransferSpecifications.hasUserId(userId))
                 .and(TransferSpecifications.hasCardId(cardId))
                 .and(TransferSpecifications.hasStatus(status))
                 .and(TransferSpecifications.createdAtBetween(startDate, endDate))
                 .and(TransferSpecifications.amountBetween(minAmount, maxAmount));
-
-        return transferRepository.findAll(spec, pageable);
     }
 }
\ No newline at end of file
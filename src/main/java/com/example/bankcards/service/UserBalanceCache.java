@@ -0,0 +1,89 @@
+package com.example.bankcards.service;
+
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.util.CacheUtils;
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Set;
+
+/**
+ * Bounded cache of the total balance of each user's cards.
+ * Every path that changes a balance evicts the affected owners on all nodes once its
+ * transaction commits, so a cached total is never older than the last committed change;
+ * the TTL only limits how long an entry of an idle user is kept.
+ * Hits and misses are published as the {@code cache.gets} meters of the
+ * {@code userBalances} cache.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+public class UserBalanceCache {
+
+    private final CardRepository cardRepository;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final AsyncCache<Long, BigDecimal> balances;
+
+    @Autowired
+    public UserBalanceCache(CardRepository cardRepository,
+                            CacheInvalidationBus cacheInvalidationBus,
+                            MeterRegistry meterRegistry,
+                            @Value("${app.balance-cache.size:100000}") long cacheSize,
+                            @Value("${app.balance-cache.ttl:5m}") Duration cacheTtl) {
+        this.cardRepository = cardRepository;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .recordStats()
+                .buildAsync();
+        CaffeineCacheMetrics.monitor(meterRegistry, balances, CacheInvalidationBus.USER_BALANCES);
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.USER_BALANCES, new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void evict(Set<Long> keys) {
+                balances.synchronous().invalidateAll(keys);
+            }
+
+            @Override
+            public void evictAll() {
+                balances.synchronous().invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Returns the total balance of the user's cards, summing them in the database only on a cache miss.
+     *
+     * @param userId user ID
+     * @return total balance, zero if the user has no cards
+     */
+    public BigDecimal get(Long userId) {
+        return CacheUtils.getOrLoad(balances, userId,
+                id -> cardRepository.sumBalanceByUserId(id).orElse(BigDecimal.ZERO));
+    }
+
+    /**
+     * Evicts the users on every node once the current transaction commits, or right away if there is none.
+     *
+     * @param userIds owners whose balance changed
+     */
+    public void evictAfterCommit(Collection<Long> userIds) {
+        cacheInvalidationBus.publish(CacheInvalidationBus.USER_BALANCES, userIds);
+    }
+
+    /**
+     * Drops every cached balance, for changes made outside the services such as bulk data fixes.
+     */
+    public void evictAll() {
+        balances.synchronous().invalidateAll();
+    }
+}
@@ -2,10 +2,11 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.ChangePasswordRequest;
 import com.example.bankcards.dto.CreateUserRequest;
+import com.example.bankcards.dto.UserDTO;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.lang.Nullable;
 
 import java.time.LocalDateTime;
@@ -45,13 +46,15 @@ public interface UserService {
      * @param startDate registration start date (can be null)
      * @param endDate registration end date (can be null)
      * @param pageable pagination parameters
+     * @param withTotal whether to count all matching rows; without it a slice is returned and no count query runs
      * @return page of users
      */
-    Page<User> getAllUsers(@Nullable String email,
-                           @Nullable Role role,
-                           @Nullable LocalDateTime startDate,
-                           @Nullable LocalDateTime endDate,
-                           Pageable pageable);
+    Slice<UserDTO> getAllUsers(@Nullable String email,
+                               @Nullable Role role,
+                               @Nullable LocalDateTime startDate,
+                               @Nullable LocalDateTime endDate,
+                               Pageable pageable,
+                               boolean withTotal);
 
     /**
      * Creates a new user.
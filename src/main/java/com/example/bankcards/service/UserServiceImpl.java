@@ -2,15 +2,21 @@ package com.example.bankcards.service;
 
 import com.example.bankcards.dto.ChangePasswordRequest;
 import com.example.bankcards.dto.CreateUserRequest;
+import com.example.bankcards.dto.UserDTO;
 import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 import com.example.bankcards.exception.BankSecurityException;
 import com.example.bankcards.exception.NotFoundException;
+import com.example.bankcards.repository.ProjectionRepository;
 import com.example.bankcards.repository.UserRepository;
+import com.example.bankcards.util.UserUtils;
 import com.example.bankcards.util.specifications.UserSpecifications;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.lang.Nullable;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -18,17 +24,49 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
 
 @Service
 public class UserServiceImpl implements UserService {
 
     private final UserRepository userRepository;
+    private final ProjectionRepository projectionRepository;
     private final PasswordEncoder passwordEncoder;
+    private final UserBalanceCache userBalanceCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final Ledger ledger;
 
     @Autowired
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository,
+                           ProjectionRepository projectionRepository,
+                           PasswordEncoder passwordEncoder,
+                           UserBalanceCache userBalanceCache,
+                           CacheInvalidationBus cacheInvalidationBus,
+                           Ledger ledger,
+                           EntityManagerFactory entityManagerFactory) {
         this.userRepository = userRepository;
+        this.projectionRepository = projectionRepository;
         this.passwordEncoder = passwordEncoder;
+        this.userBalanceCache = userBalanceCache;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.ledger = ledger;
+
+        // Users changed on another node must not be served from this node's second-level cache
+        Cache secondLevelCache = entityManagerFactory.unwrap(SessionFactory.class).getCache();
+        cacheInvalidationBus.subscribe(CacheInvalidationBus.USERS, new CacheInvalidationBus.Subscriber() {
+            @Override
+            public void evict(Set<Long> keys) {
+                keys.forEach(id -> secondLevelCache.evictEntityData(User.class, id));
+                secondLevelCache.evictQueryRegion(UserRepository.QUERY_CACHE_REGION);
+            }
+
+            @Override
+            public void evictAll() {
+                secondLevelCache.evictEntityData(User.class);
+                secondLevelCache.evictQueryRegion(UserRepository.QUERY_CACHE_REGION);
+            }
+        });
     }
 
     @Override
@@ -44,17 +82,19 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public Page<User> getAllUsers(@Nullable String email,
-                                  @Nullable Role role,
-                                  @Nullable LocalDateTime startDate,
-                                  @Nullable LocalDateTime endDate,
-                                  Pageable pageable) {
+    @Transactional(readOnly = true)
+    public Slice<UserDTO> getAllUsers(@Nullable String email,
+                                      @Nullable Role role,
+                                      @Nullable LocalDateTime startDate,
+                                      @Nullable LocalDateTime endDate,
+                                      Pageable pageable,
+                                      boolean withTotal) {
         Specification<User> spec = Specification
                 .where(UserSpecifications.hasEmail(email))
                 .and(UserSpecifications.hasRole(role))
                 .and(UserSpecifications.createdAtBetween(startDate, endDate));
 
-        return userRepository.findAll(spec, pageable);
+        return projectionRepository.findAll(User.class, spec, pageable, withTotal, UserUtils.PROJECTION);
     }
 
     @Override
@@ -71,7 +111,10 @@ public class UserServiceImpl implements UserService {
         user.setPassword(passwordEncoder.encode(request.getPassword()));
         user.setRole(request.getRole());
 
-        return userRepository.save(user);
+        User savedUser = userRepository.save(user);
+        // Other nodes may have cached an empty findByEmail result for this address
+        cacheInvalidationBus.publish(CacheInvalidationBus.USERS, List.of(savedUser.getId()));
+        return savedUser;
     }
 
     @Override
@@ -79,7 +122,12 @@ public class UserServiceImpl implements UserService {
         if (!userRepository.existsById(id)) {
             throw new NotFoundException("User", id);
         }
+        if (ledger.hasEntriesForUser(id)) {
+            throw new IllegalStateException("User has cards with ledger history and cannot be deleted");
+        }
         userRepository.deleteById(id);
+        cacheInvalidationBus.publish(CacheInvalidationBus.USERS, List.of(id));
+        userBalanceCache.evictAfterCommit(List.of(id));
     }
 
     @Override
@@ -104,5 +152,6 @@ public class UserServiceImpl implements UserService {
 
         user.setPassword(passwordEncoder.encode(request.getNewPassword()));
         userRepository.save(user);
+        cacheInvalidationBus.publish(CacheInvalidationBus.USERS, List.of(userId));
     }
 }
\ No newline at end of file
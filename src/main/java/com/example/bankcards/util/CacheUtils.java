@@ -0,0 +1,58 @@
+package com.example.bankcards.util;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * Utility class for reading Caffeine caches from request threads.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+public class CacheUtils {
+
+    private CacheUtils() {
+        // empty
+    }
+
+    /**
+     * Returns the cached value or loads it on the calling thread.
+     * Unlike {@code Cache.get(key, loader)}, the loader does not run inside the cache's
+     * per-key lock, so a loader blocked on the database does not pin a virtual thread
+     * to its carrier. Concurrent callers for the same key still wait for a single load.
+     * An entry invalidated while loading is not cached, but the loaded value is still returned.
+     */
+    public static <K, V> V getOrLoad(AsyncCache<K, V> cache, K key, Function<K, V> loader) {
+        CompletableFuture<V> cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return join(cached);
+        }
+
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> concurrent = cache.asMap().putIfAbsent(key, loading);
+        if (concurrent != null) {
+            return join(concurrent);
+        }
+
+        try {
+            V value = loader.apply(key);
+            loading.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            cache.asMap().remove(key, loading);
+            loading.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static <V> V join(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+}
@@ -1,12 +1,37 @@
 package com.example.bankcards.util;
 
 import com.example.bankcards.dto.CardBlockDTO;
+import com.example.bankcards.entity.BlockRequestStatus;
+import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.CardBlock;
+import jakarta.persistence.criteria.Join;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 @Component
 public class CardBlockUtils {
 
+    /**
+     * Selects the columns of {@link CardBlockDTO} without loading block requests, cards or users as entities.
+     */
+    public static final DtoProjection<CardBlock, CardBlockDTO> PROJECTION = DtoProjection.of(
+            (root, query, cb) -> {
+                Join<CardBlock, Card> card = root.join("card");
+                return List.of(root.get("id"), card.get("id"), card.get("cardLast4"), root.get("user").get("id"),
+                        root.get("requestedAt"), root.get("processedAt"), root.get("status"));
+            },
+            tuple -> new CardBlockDTO(
+                    tuple.get(0, Long.class),
+                    tuple.get(1, Long.class),
+                    MaskUtils.maskLastFour(tuple.get(2, String.class)),
+                    tuple.get(3, Long.class),
+                    tuple.get(4, LocalDateTime.class),
+                    tuple.get(5, LocalDateTime.class),
+                    tuple.get(6, BlockRequestStatus.class)
+            ));
+
     private CardBlockUtils() {
         // empty
     }
@@ -15,7 +40,7 @@ public class CardBlockUtils {
         return new CardBlockDTO(
                 cardBlock.getId(),
                 cardBlock.getCard().getId(),
-                MaskUtils.maskCardNumber(cardBlock.getCard().getCardNumber()),
+                MaskUtils.maskLastFour(cardBlock.getCard().getCardLast4()),
                 cardBlock.getUser().getId(),
                 cardBlock.getRequestedAt(),
                 cardBlock.getProcessedAt(),
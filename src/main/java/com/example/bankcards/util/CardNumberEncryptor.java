@@ -9,46 +9,100 @@ import org.springframework.stereotype.Component;
 import javax.crypto.Cipher;
 import javax.crypto.spec.SecretKeySpec;
 import java.util.Base64;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Encrypts card numbers with AES before they are written to the database.
+ * The key is derived once, and initialized ciphers are borrowed from a shared pool,
+ * so converting a row costs a single {@code doFinal} call. A pool rather than a
+ * thread-local keeps ciphers reused when requests run on short-lived virtual threads;
+ * it grows to the peak number of concurrent conversions.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
 @Component
 @Converter
 public class CardNumberEncryptor implements AttributeConverter<String, String> {
 
     private static final String ALGORITHM = EncryptionConstants.ALGORITHM;
+    private static final String TRANSFORMATION = EncryptionConstants.TRANSFORMATION;
 
-    @Value("${app.encryption.secret}")
-    private String secretKey;
+    private final SecretKeySpec key;
+    private final Queue<Cipher> encryptCiphers = new ConcurrentLinkedQueue<>();
+    private final Queue<Cipher> decryptCiphers = new ConcurrentLinkedQueue<>();
+
+    public CardNumberEncryptor(@Value("${app.encryption.secret}") String secretKey) {
+        this.key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
+    }
 
     @Override
     public String convertToDatabaseColumn(String cardNumber) {
+        return encrypt(cardNumber);
+    }
+
+    @Override
+    public String convertToEntityAttribute(String encryptedCardNumber) {
+        return decrypt(encryptedCardNumber);
+    }
+
+    /**
+     * Encrypts a card number into the Base64 form stored in the database.
+     *
+     * @param cardNumber plain card number
+     * @return encrypted card number
+     */
+    public String encrypt(String cardNumber) {
         try {
             if (cardNumber == null) return null;
 
-            SecretKeySpec key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.ENCRYPT_MODE, key);
-
+            Cipher cipher = borrow(encryptCiphers, Cipher.ENCRYPT_MODE);
             byte[] encrypted = cipher.doFinal(cardNumber.getBytes());
+            encryptCiphers.offer(cipher);
             return Base64.getEncoder().encodeToString(encrypted);
         } catch (Exception e) {
             throw new RuntimeException("Error encrypting card number", e);
         }
     }
 
-    @Override
-    public String convertToEntityAttribute(String encryptedCardNumber) {
+    /**
+     * Decrypts a stored card number. Callers should only do this when the full
+     * number is required; masked output is built from the stored last four digits.
+     *
+     * @param encryptedCardNumber encrypted card number
+     * @return plain card number
+     */
+    public String decrypt(String encryptedCardNumber) {
         try {
             if (encryptedCardNumber == null) return null;
 
-            SecretKeySpec key = new SecretKeySpec(secretKey.getBytes(), ALGORITHM);
-            Cipher cipher = Cipher.getInstance(ALGORITHM);
-            cipher.init(Cipher.DECRYPT_MODE, key);
-
             byte[] decoded = Base64.getDecoder().decode(encryptedCardNumber);
+            Cipher cipher = borrow(decryptCiphers, Cipher.DECRYPT_MODE);
             byte[] decrypted = cipher.doFinal(decoded);
+            decryptCiphers.offer(cipher);
             return new String(decrypted);
         } catch (Exception e) {
             throw new RuntimeException("Error decrypting card number", e);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Takes an idle cipher from the pool, creating one if all are in use.
+     * A cipher that failed is not returned to the pool.
+     */
+    private Cipher borrow(Queue<Cipher> pool, int mode) {
+        Cipher cipher = pool.poll();
+        return cipher != null ? cipher : createCipher(mode);
+    }
+
+    private Cipher createCipher(int mode) {
+        try {
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(mode, key);
+            return cipher;
+        } catch (Exception e) {
+            throw new RuntimeException("Error initializing card number cipher", e);
+        }
+    }
+}
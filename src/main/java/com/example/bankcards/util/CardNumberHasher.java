@@ -0,0 +1,47 @@
+package com.example.bankcards.util;
+
+import com.example.bankcards.config.EncryptionConstants;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+/**
+ * Computes the blind index of a card number.
+ * The index is a keyed HMAC-SHA256 of the plain card number, so equal numbers
+ * always map to the same value and can be looked up through a plain B-tree index,
+ * independently of how the number itself is encrypted.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+@Component
+public class CardNumberHasher {
+
+    private final SecretKeySpec key;
+
+    public CardNumberHasher(@Value("${app.encryption.blind-index-secret}") String secret) {
+        this.key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), EncryptionConstants.HMAC_ALGORITHM);
+    }
+
+    /**
+     * Calculates the blind index for a card number.
+     *
+     * @param cardNumber plain card number
+     * @return lowercase hex encoded HMAC of the card number
+     */
+    public String hash(String cardNumber) {
+        try {
+            Mac mac = Mac.getInstance(EncryptionConstants.HMAC_ALGORITHM);
+            mac.init(key);
+
+            byte[] digest = mac.doFinal(cardNumber.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (Exception e) {
+            throw new RuntimeException("Error hashing card number", e);
+        }
+    }
+}
@@ -2,6 +2,14 @@ package com.example.bankcards.util;
 
 import com.example.bankcards.dto.CardDTO;
 import com.example.bankcards.entity.Card;
+import com.example.bankcards.entity.CardBalanceShard;
+import com.example.bankcards.entity.CardStatus;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Subquery;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
 
 /**
  * Utility class for card-related operations.
@@ -12,6 +20,35 @@ import com.example.bankcards.entity.Card;
  */
 public class CardUtils {
 
+    /**
+     * Selects the columns of {@link CardDTO} without loading cards as entities.
+     * Shard balances are summed in a correlated subquery that only runs for sharded cards.
+     */
+    public static final DtoProjection<Card, CardDTO> PROJECTION = DtoProjection.of(
+            (root, query, cb) -> {
+                Subquery<BigDecimal> shardSum = query.subquery(BigDecimal.class);
+                Root<CardBalanceShard> shard = shardSum.from(CardBalanceShard.class);
+                shardSum.select(cb.sum(shard.get("balance")))
+                        .where(cb.equal(shard.get("cardId"), root.get("id")));
+
+                return List.of(root.get("id"), root.get("user").get("id"), root.get("cardLast4"),
+                        root.get("expiryDate"), root.get("balance"),
+                        cb.<BigDecimal>selectCase().when(cb.gt(root.get("balanceShards"), 1), shardSum),
+                        root.get("status"));
+            },
+            tuple -> {
+                BigDecimal balance = tuple.get(4, BigDecimal.class);
+                BigDecimal shardedBalance = tuple.get(5, BigDecimal.class);
+                return new CardDTO(
+                        tuple.get(0, Long.class),
+                        tuple.get(1, Long.class),
+                        MaskUtils.maskLastFour(tuple.get(2, String.class)),
+                        tuple.get(3, LocalDate.class),
+                        shardedBalance == null ? balance : balance.add(shardedBalance),
+                        tuple.get(6, CardStatus.class)
+                );
+            });
+
     /**
      * Converts Card entity to CardDTO with masked card number.
      *
@@ -22,9 +59,9 @@ public class CardUtils {
         return new CardDTO(
                 card.getId(),
                 card.getUser().getId(),
-                MaskUtils.maskCardNumber(card.getCardNumber()),
+                MaskUtils.maskLastFour(card.getCardLast4()),
                 card.getExpiryDate(),
-                card.getBalance(),
+                card.getTotalBalance(),
                 card.getStatus()
         );
     }
@@ -0,0 +1,60 @@
+package com.example.bankcards.util;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Encodes keyset pagination positions as opaque cursors.
+ * A position is the {@code (createdAt, id)} pair of the last row of a page.
+ *
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+public class CursorUtils {
+
+    public static final int MAX_SIZE = 1000;
+
+    private static final String SEPARATOR = "|";
+
+    private CursorUtils() {
+        // empty
+    }
+
+    public record Position(LocalDateTime createdAt, Long id) {
+    }
+
+    public static String encode(Position position) {
+        String raw = position.createdAt() + SEPARATOR + position.id();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor produced by {@link #encode(Position)}.
+     *
+     * @param cursor opaque cursor, may be null for the first page
+     * @return position to continue after, or null for the first page
+     * @throws IllegalArgumentException if the cursor is malformed
+     */
+    public static Position decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new Position(
+                    LocalDateTime.parse(raw.substring(0, separator)),
+                    Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+    }
+
+    public static void validateSize(int size) {
+        if (size < 1 || size > MAX_SIZE) {
+            throw new IllegalArgumentException("Size must be between 1 and " + MAX_SIZE);
+        }
+    }
+}
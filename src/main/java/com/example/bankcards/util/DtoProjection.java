@@ -0,0 +1,64 @@
+package com.example.bankcards.util;
+
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.AbstractQuery;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Describes how to read a DTO straight from query columns instead of from a managed entity.
+ * The selections and the tuple mapping are declared together so their positions stay in sync.
+ *
+ * @param <T> root entity type
+ * @param <D> DTO type
+ * @author Bank System Team
+ * @since 1.0.0
+ */
+public interface DtoProjection<T, D> {
+
+    /**
+     * Builds the selected columns, in the order {@link #map(Tuple)} reads them.
+     *
+     * @param root query root
+     * @param query query the selections belong to, for correlated subqueries
+     * @param cb criteria builder
+     * @return selections of the tuple query
+     */
+    List<Selection<?>> select(Root<T> root, AbstractQuery<?> query, CriteriaBuilder cb);
+
+    /**
+     * Converts one result row into the DTO.
+     *
+     * @param tuple row selected by {@link #select(Root, AbstractQuery, CriteriaBuilder)}
+     * @return DTO
+     */
+    D map(Tuple tuple);
+
+    static <T, D> DtoProjection<T, D> of(Selector<T> selector, Function<Tuple, D> mapper) {
+        return new DtoProjection<>() {
+            @Override
+            public List<Selection<?>> select(Root<T> root, AbstractQuery<?> query, CriteriaBuilder cb) {
+                return selector.select(root, query, cb);
+            }
+
+            @Override
+            public D map(Tuple tuple) {
+                return mapper.apply(tuple);
+            }
+        };
+    }
+
+    /**
+     * Builds the selections of a projection; shaped like {@code Specification#toPredicate}.
+     *
+     * @param <T> root entity type
+     */
+    @FunctionalInterface
+    interface Selector<T> {
+        List<Selection<?>> select(Root<T> root, AbstractQuery<?> query, CriteriaBuilder cb);
+    }
+}
@@ -6,7 +6,18 @@ public class MaskUtils {
         if (cardNumber == null || cardNumber.length() < 4) {
             return "****";
         }
-        return "**** **** **** " + cardNumber.substring(cardNumber.length() - 4);
+        return "**** **** **** " + lastFour(cardNumber);
+    }
+
+    public static String maskLastFour(String lastFour) {
+        if (lastFour == null || lastFour.length() != 4) {
+            return "****";
+        }
+        return "**** **** **** " + lastFour;
+    }
+
+    public static String lastFour(String cardNumber) {
+        return cardNumber.substring(cardNumber.length() - 4);
     }
 }
 
@@ -1,15 +1,40 @@
 package com.example.bankcards.util;
 
 import com.example.bankcards.dto.TransactionDTO;
+import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transaction;
+import com.example.bankcards.entity.TransactionType;
+import jakarta.persistence.criteria.Join;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public class TransactionUtils {
 
+    /**
+     * Selects the columns of {@link TransactionDTO} without loading transactions or cards as entities.
+     */
+    public static final DtoProjection<Transaction, TransactionDTO> PROJECTION = DtoProjection.of(
+            (root, query, cb) -> {
+                Join<Transaction, Card> card = root.join("card");
+                return List.of(root.get("id"), card.get("id"), card.get("cardLast4"),
+                        root.get("transactionType"), root.get("amount"), root.get("createdAt"));
+            },
+            tuple -> new TransactionDTO(
+                    tuple.get(0, Long.class),
+                    tuple.get(1, Long.class),
+                    MaskUtils.maskLastFour(tuple.get(2, String.class)),
+                    tuple.get(3, TransactionType.class),
+                    tuple.get(4, BigDecimal.class),
+                    tuple.get(5, LocalDateTime.class)
+            ));
+
     public static TransactionDTO toDTO(Transaction transaction) {
         TransactionDTO dto = new TransactionDTO();
         dto.setId(transaction.getId());
         dto.setCardId(transaction.getCard().getId());
-        dto.setCardMasked(MaskUtils.maskCardNumber(transaction.getCard().getCardNumber()));
+        dto.setCardMasked(MaskUtils.maskLastFour(transaction.getCard().getCardLast4()));
         dto.setTransactionType(transaction.getTransactionType());
         dto.setAmount(transaction.getAmount());
         dto.setCreatedAt(transaction.getCreatedAt());
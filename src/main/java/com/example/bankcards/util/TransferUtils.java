@@ -1,15 +1,48 @@
 package com.example.bankcards.util;
 
 import com.example.bankcards.dto.TransferDTO;
+import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
+import com.example.bankcards.entity.TransferStatus;
+import jakarta.persistence.criteria.Join;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
 
 public class TransferUtils {
 
+    /**
+     * Selects the columns of {@link TransferDTO} without loading transfers or cards as entities.
+     */
+    public static final DtoProjection<Transfer, TransferDTO> PROJECTION = DtoProjection.of(
+            (root, query, cb) -> {
+                Join<Transfer, Card> fromCard = root.join("fromCard");
+                Join<Transfer, Card> toCard = root.join("toCard");
+                return List.of(root.get("id"), fromCard.get("cardLast4"), toCard.get("cardLast4"),
+                        root.get("amount"), root.get("status"), root.get("createdAt"));
+            },
+            tuple -> new TransferDTO(
+                    tuple.get(0, Long.class),
+                    MaskUtils.maskLastFour(tuple.get(1, String.class)),
+                    MaskUtils.maskLastFour(tuple.get(2, String.class)),
+                    tuple.get(3, BigDecimal.class),
+                    tuple.get(4, TransferStatus.class),
+                    tuple.get(5, LocalDateTime.class)
+            ));
+
     public static TransferDTO toDTO(Transfer transfer) {
+        return toDTO(transfer, transfer.getFromCard().getCardLast4(), transfer.getToCard().getCardLast4());
+    }
+
+    /**
+     * Builds the DTO from card digits the caller already has, without touching the card associations.
+     */
+    public static TransferDTO toDTO(Transfer transfer, String fromCardLast4, String toCardLast4) {
         return new TransferDTO(
                 transfer.getId(),
-                MaskUtils.maskCardNumber(transfer.getFromCard().getCardNumber()),
-                MaskUtils.maskCardNumber(transfer.getToCard().getCardNumber()),
+                MaskUtils.maskLastFour(fromCardLast4),
+                MaskUtils.maskLastFour(toCardLast4),
                 transfer.getAmount(),
                 transfer.getStatus(),
                 transfer.getCreatedAt()
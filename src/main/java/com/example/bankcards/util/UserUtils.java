@@ -1,8 +1,11 @@
 package com.example.bankcards.util;
 
 import com.example.bankcards.dto.UserDTO;
+import com.example.bankcards.entity.Role;
 import com.example.bankcards.entity.User;
 
+import java.util.List;
+
 /**
  * Utility class for user-related operations.
  * Provides methods for converting between User entities and DTOs.
@@ -12,6 +15,20 @@ import com.example.bankcards.entity.User;
  */
 public class UserUtils {
 
+    /**
+     * Selects the columns of {@link UserDTO} without loading users as entities.
+     */
+    public static final DtoProjection<User, UserDTO> PROJECTION = DtoProjection.of(
+            (root, query, cb) -> List.of(root.get("id"), root.get("firstName"), root.get("lastName"),
+                    root.get("email"), root.get("role")),
+            tuple -> new UserDTO(
+                    tuple.get(0, Long.class),
+                    tuple.get(1, String.class),
+                    tuple.get(2, String.class),
+                    tuple.get(3, String.class),
+                    tuple.get(4, Role.class)
+            ));
+
     /**
      * Converts User entity to UserDTO.
      *
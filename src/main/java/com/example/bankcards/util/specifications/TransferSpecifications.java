@@ -1,9 +1,7 @@
 package com.example.bankcards.util.specifications;
 
-import com.example.bankcards.entity.Card;
 import com.example.bankcards.entity.Transfer;
 import com.example.bankcards.entity.TransferStatus;
-import jakarta.persistence.criteria.Join;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Component;
 
@@ -13,16 +11,19 @@ import java.time.LocalDateTime;
 @Component
 public class TransferSpecifications {
 
+    /**
+     * Matches transfers sent or received by the user.
+     * Compares the denormalized owner columns instead of joining both cards,
+     * so PostgreSQL can combine the (from_user_id, created_at) and
+     * (to_user_id, created_at) indexes with a BitmapOr.
+     */
     public static Specification<Transfer> hasUserId(Long userId) {
         return (root, query, cb) -> {
             if (userId == null) return null;
 
-            Join<Transfer, Card> fromCard = root.join("fromCard");
-            Join<Transfer, Card> toCard = root.join("toCard");
-
             return cb.or(
-                    cb.equal(fromCard.get("user").get("id"), userId),
-                    cb.equal(toCard.get("user").get("id"), userId)
+                    cb.equal(root.get("fromUserId"), userId),
+                    cb.equal(root.get("toUserId"), userId)
             );
         };
     }
@@ -36,7 +36,7 @@ public class TransferValidator implements ConstraintValidator<ValidTransfer, Tra
             isValid = false;
         }
 
-        if (transfer.getFromCard().getBalance().compareTo(transfer.getAmount()) < 0) {
+        if (transfer.getFromCard().getTotalBalance().compareTo(transfer.getAmount()) < 0) {
             addConstraintViolation(context, "Insufficient funds on source card");
             isValid = false;
         }
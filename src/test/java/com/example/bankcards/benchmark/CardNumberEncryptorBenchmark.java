@@ -0,0 +1,84 @@
+package com.example.bankcards.benchmark;
+
+import com.example.bankcards.config.EncryptionConstants;
+import com.example.bankcards.util.CardNumberEncryptor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-call cipher setup used before with the cached engine
+ * in {@link CardNumberEncryptor}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+public class CardNumberEncryptorBenchmark {
+
+    private static final String SECRET = "1234567890123456";
+    private static final String CARD_NUMBER = "1234567890123456";
+
+    private CardNumberEncryptor encryptor;
+    private String encryptedCardNumber;
+
+    @Setup
+    public void setUp() {
+        encryptor = new CardNumberEncryptor(SECRET);
+        encryptedCardNumber = encryptor.convertToDatabaseColumn(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String encryptPerCallCipher() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(SECRET.getBytes(), EncryptionConstants.ALGORITHM);
+        Cipher cipher = Cipher.getInstance(EncryptionConstants.ALGORITHM);
+        cipher.init(Cipher.ENCRYPT_MODE, key);
+
+        return Base64.getEncoder().encodeToString(cipher.doFinal(CARD_NUMBER.getBytes()));
+    }
+
+    @Benchmark
+    public String encryptCachedCipher() {
+        return encryptor.convertToDatabaseColumn(CARD_NUMBER);
+    }
+
+    @Benchmark
+    public String decryptPerCallCipher() throws Exception {
+        SecretKeySpec key = new SecretKeySpec(SECRET.getBytes(), EncryptionConstants.ALGORITHM);
+        Cipher cipher = Cipher.getInstance(EncryptionConstants.ALGORITHM);
+        cipher.init(Cipher.DECRYPT_MODE, key);
+
+        return new String(cipher.doFinal(Base64.getDecoder().decode(encryptedCardNumber)));
+    }
+
+    @Benchmark
+    public String decryptCachedCipher() {
+        return encryptor.convertToEntityAttribute(encryptedCardNumber);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(CardNumberEncryptorBenchmark.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
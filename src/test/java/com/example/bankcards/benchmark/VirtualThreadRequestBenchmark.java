@@ -0,0 +1,137 @@
+package com.example.bankcards.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a Tomcat-sized platform thread pool with one virtual thread per request
+ * while the database is slow. Database requests queue for one of {@link #POOL_SIZE}
+ * connections on a fair semaphore, as the {@code virtual-threads} profile does, and hold
+ * it for the injected latency; cached requests never touch the database.
+ * {@link #BACKGROUND_CLIENTS} closed-loop clients keep the server loaded while each
+ * benchmark call issues one more request, so Throughput reports requests per millisecond
+ * and SampleTime reports the latency percentiles, including p0.99.
+ * The virtual executor needs a Java 21 runtime, so it is only added to the default
+ * {@code platform} run when {@link #main(String[])} finds one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class VirtualThreadRequestBenchmark {
+
+    private static final int TOMCAT_MAX_THREADS = 200;
+    private static final int POOL_SIZE = 20;
+    private static final int BACKGROUND_CLIENTS = 400;
+
+    private static final int VIRTUAL_THREADS_FEATURE_VERSION = 21;
+
+    @Param({"platform"})
+    public String executor;
+
+    @Param({"5", "50"})
+    public long dbLatencyMillis;
+
+    private ExecutorService server;
+    private ExecutorService clients;
+    private Semaphore connections;
+    private volatile boolean running;
+
+    @Setup(Level.Trial)
+    public void setUp() throws ReflectiveOperationException {
+        server = "virtual".equals(executor)
+                ? newVirtualThreadPerTaskExecutor()
+                : Executors.newFixedThreadPool(TOMCAT_MAX_THREADS);
+        connections = new Semaphore(POOL_SIZE, true);
+        running = true;
+
+        clients = Executors.newFixedThreadPool(BACKGROUND_CLIENTS);
+        for (int i = 0; i < BACKGROUND_CLIENTS; i++) {
+            boolean needsDatabase = i % 2 == 0;
+            clients.execute(() -> {
+                while (running) {
+                    try {
+                        server.submit(() -> handle(needsDatabase)).get();
+                    } catch (InterruptedException e) {
+                        return;
+                    } catch (ExecutionException e) {
+                        throw new IllegalStateException(e);
+                    }
+                }
+            });
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        running = false;
+        clients.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public void databaseRequest() throws Exception {
+        server.submit(() -> handle(true)).get();
+    }
+
+    @Benchmark
+    public void cachedRequest() throws Exception {
+        server.submit(() -> handle(false)).get();
+    }
+
+    private Void handle(boolean needsDatabase) throws InterruptedException {
+        Blackhole.consumeCPU(1000);
+
+        if (needsDatabase) {
+            connections.acquire();
+            try {
+                Thread.sleep(dbLatencyMillis);
+            } finally {
+                connections.release();
+            }
+        }
+        return null;
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() throws ReflectiveOperationException {
+        // Looked up reflectively so the project keeps compiling for Java 17
+        return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        String[] executors = Runtime.version().feature() >= VIRTUAL_THREADS_FEATURE_VERSION
+                ? new String[]{"platform", "virtual"}
+                : new String[]{"platform"};
+
+        new Runner(new OptionsBuilder()
+                .include(VirtualThreadRequestBenchmark.class.getSimpleName())
+                .param("executor", executors)
+                .build())
+                .run();
+    }
+}
@@ -1,16 +1,40 @@
 package com.example.bankcards.integration_tests;
 
 import com.example.bankcards.TestDataFactory;
+import com.example.bankcards.dto.CreateUserRequest;
 import com.example.bankcards.dto.LoginRequest;
 import com.example.bankcards.dto.RegistrationRequest;
+import com.example.bankcards.entity.Role;
+import com.example.bankcards.exception.PasswordHashingUnavailableException;
+import com.example.bankcards.security.ActiveUserCache;
+import com.example.bankcards.security.BoundedPasswordEncoder;
+import com.example.bankcards.security.JwtService;
+import com.example.bankcards.security.TokenClaims;
+import com.example.bankcards.service.CacheInvalidationBus;
+import io.jsonwebtoken.security.SignatureException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.test.web.servlet.MockMvc;
 
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -23,6 +47,21 @@ class AuthTest extends BaseIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private ActiveUserCache activeUserCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
     @Test
     void shouldRegisterUserSuccessfully() throws Exception {
         RegistrationRequest request = TestDataFactory.createRegistrationRequest();
@@ -95,4 +134,137 @@ class AuthTest extends BaseIntegrationTest {
                         .content(objectMapper.writeValueAsString(invalidRequest)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldAuthenticateFromTokenClaimsAndRejectDeletedUsers() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        TestDataFactory.UserWithToken user = TestDataFactory.createUserWithLoginAndId(
+                mockMvc, objectMapper, adminToken, "Claims", "User", "claims@test.com", "password123");
+
+        TokenClaims claims = jwtService.parseClaims(user.token);
+        assertThat(claims.userId()).isEqualTo(user.userId);
+        assertThat(claims.role()).isEqualTo("ROLE_USER");
+        assertThat(claims.subject()).isEqualTo("claims@test.com");
+
+        mockMvc.perform(get("/api/cards/my-cards")
+                        .header("Authorization", "Bearer " + user.token))
+                .andExpect(status().isOk());
+        assertThat(activeUserCache.isActive(user.userId)).isTrue();
+
+        mockMvc.perform(delete("/api/users/" + user.userId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        assertThat(activeUserCache.isActive(user.userId)).isFalse();
+    }
+
+    @Test
+    void shouldTakeAuthoritiesFromCurrentRoleInsteadOfToken() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        CreateUserRequest request = new CreateUserRequest("Demoted", "Admin", "demoted@test.com", "password123", Role.ROLE_ADMIN);
+        Long userId = objectMapper.readTree(mockMvc.perform(post("/api/users")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("id").asLong();
+
+        String demotedToken = objectMapper.readTree(mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("demoted@test.com", "password123"))))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString()).get("token").asText();
+
+        mockMvc.perform(get("/api/transactions")
+                        .header("Authorization", "Bearer " + demotedToken))
+                .andExpect(status().isOk());
+
+        jdbcTemplate.update("UPDATE users SET role = 'ROLE_USER' WHERE id = ?", userId);
+        cacheInvalidationBus.publish(CacheInvalidationBus.USERS, List.of(userId));
+
+        mockMvc.perform(get("/api/transactions")
+                        .header("Authorization", "Bearer " + demotedToken))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/hibernatecache")
+                        .header("Authorization", "Bearer " + demotedToken))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void shouldServeRepeatedTokensFromCacheButStillRejectTamperedOnes() throws Exception {
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        TokenClaims first = jwtService.parseClaims(userToken);
+        assertThat(jwtService.parseClaims(userToken)).isSameAs(first);
+
+        String tampered = userToken.substring(0, userToken.length() - 2)
+                + (userToken.endsWith("AA") ? "BB" : "AA");
+        assertThatThrownBy(() -> jwtService.parseClaims(tampered))
+                .isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void shouldTimePasswordVerificationOnHashingPool() throws Exception {
+        TestDataFactory.getUserToken(mockMvc, objectMapper);
+        long verifiedBefore = meterRegistry.get("password.hashing").tag("operation", "matches").timer().count();
+
+        LoginRequest loginRequest = new LoginRequest("john@test.com", "password123");
+        mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(loginRequest)))
+                .andExpect(status().isOk());
+
+        assertThat(meterRegistry.get("password.hashing").tag("operation", "matches").timer().count())
+                .isEqualTo(verifiedBefore + 1);
+        assertThat(meterRegistry.get("executor.queued").tag("name", "passwordHashing").gauge().value())
+                .isZero();
+    }
+
+    @Test
+    void shouldRejectPasswordWorkOnceHashingPoolAndQueueAreFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        PasswordEncoder slowEncoder = new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return "hashed";
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                return false;
+            }
+        };
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(slowEncoder, 1, 1, registry);
+        ExecutorService callers = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> running = callers.submit(() -> encoder.encode("first"));
+            Future<String> queued = callers.submit(() -> encoder.encode("second"));
+            while (registry.get("executor.queued").gauge().value() < 1) {
+                Thread.sleep(10);
+            }
+
+            assertThatThrownBy(() -> encoder.encode("third"))
+                    .isInstanceOf(PasswordHashingUnavailableException.class);
+            assertThat(registry.get("password.hashing.rejected").counter().count()).isEqualTo(1);
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("hashed");
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("hashed");
+            assertThat(registry.get("password.hashing").tag("operation", "encode").timer().count()).isEqualTo(2);
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+            encoder.destroy();
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package com.example.bankcards.integration_tests;
 
+import com.example.bankcards.service.UserBalanceCache;
+import jakarta.persistence.EntityManagerFactory;
 import org.junit.jupiter.api.AfterEach;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -34,8 +36,17 @@ public abstract class BaseIntegrationTest {
     @Autowired
     private JdbcTemplate jdbcTemplate;
 
+    @Autowired
+    private UserBalanceCache userBalanceCache;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     @AfterEach
     void cleanupDatabase() {
+        jdbcTemplate.execute("DELETE FROM idempotency_keys");
+        jdbcTemplate.execute("DELETE FROM ledger_checkpoints");
+        jdbcTemplate.execute("DELETE FROM ledger_entries");
         jdbcTemplate.execute("DELETE FROM transactions");
         jdbcTemplate.execute("DELETE FROM transfers");
         jdbcTemplate.execute("DELETE FROM card_blocks");
@@ -47,5 +58,10 @@ public abstract class BaseIntegrationTest {
         jdbcTemplate.execute("ALTER SEQUENCE transfers_id_seq RESTART WITH 1");
         jdbcTemplate.execute("ALTER SEQUENCE card_blocks_id_seq RESTART WITH 1");
         jdbcTemplate.execute("ALTER SEQUENCE transactions_id_seq RESTART WITH 1");
+        jdbcTemplate.execute("ALTER SEQUENCE idempotency_keys_id_seq RESTART WITH 1");
+        jdbcTemplate.execute("ALTER SEQUENCE ledger_entries_id_seq RESTART WITH 1");
+
+        userBalanceCache.evictAll();
+        entityManagerFactory.getCache().evictAll();
     }
 }
\ No newline at end of file
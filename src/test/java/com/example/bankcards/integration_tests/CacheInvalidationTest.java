@@ -0,0 +1,133 @@
+package com.example.bankcards.integration_tests;
+
+import com.example.bankcards.TestDataFactory;
+import com.example.bankcards.dto.LoginRequest;
+import com.example.bankcards.service.CacheInvalidationBus;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Simulates writes made by another application node: the rows are changed directly in the
+ * database and the node's notification is sent with {@code pg_notify}, after which this node
+ * must stop serving the cached values.
+ */
+@AutoConfigureMockMvc
+class CacheInvalidationTest extends BaseIntegrationTest {
+
+    private static final long TIMEOUT_MILLIS = 5000;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CacheInvalidationBus cacheInvalidationBus;
+
+    @Test
+    void shouldEvictBalanceChangedOnAnotherNode() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, userId, "4950111122223333", new BigDecimal("100.00"));
+
+        assertEquals("100.00", balance(adminToken, userId));
+
+        jdbcTemplate.update("UPDATE cards SET balance = 300 WHERE id = ?", cardId);
+        assertEquals("100.00", balance(adminToken, userId));
+
+        jdbcTemplate.queryForList("SELECT pg_notify('cache_invalidation', ?)", "userBalances:" + userId);
+
+        awaitValue("300.00", () -> balance(adminToken, userId));
+    }
+
+    @Test
+    void shouldEvictUserChangedOnAnotherNode() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        TestDataFactory.getUserToken(mockMvc, objectMapper);
+        String otherNodePassword = jdbcTemplate.queryForObject(
+                "SELECT password FROM users WHERE email = 'admin@bank.com'", String.class);
+
+        jdbcTemplate.update("UPDATE users SET password = ? WHERE id = 2", otherNodePassword);
+        jdbcTemplate.queryForList("SELECT pg_notify('cache_invalidation', ?)", "users:2");
+
+        LoginRequest login = new LoginRequest("john@test.com", "admin123");
+        awaitValue(200, () -> mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andReturn().getResponse().getStatus());
+    }
+
+    @Test
+    void shouldFindUserRegisteredOnAnotherNode() throws Exception {
+        TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        LoginRequest login = new LoginRequest("other-node@test.com", "admin123");
+        assertNotEquals(200, login(login));
+
+        Long userId = jdbcTemplate.queryForObject("INSERT INTO users (first_name, last_name, email, password, role, created_at) " +
+                "SELECT 'Other', 'Node', 'other-node@test.com', password, 'ROLE_USER', now() " +
+                "FROM users WHERE email = 'admin@bank.com' RETURNING id", Long.class);
+        jdbcTemplate.queryForList("SELECT pg_notify('cache_invalidation', ?)", "users:" + userId);
+
+        awaitValue(200, () -> login(login));
+    }
+
+    @Test
+    void shouldSplitLongKeysIntoNotificationsWithinPayloadLimit() {
+        // 19-digit keys would overflow the 8000 byte NOTIFY limit in chunks of a fixed key count
+        List<Long> keys = LongStream.range(0, 2000).map(i -> Long.MAX_VALUE - i).boxed().toList();
+
+        assertDoesNotThrow(() -> cacheInvalidationBus.publish(CacheInvalidationBus.USER_BALANCES, keys));
+    }
+
+    private int login(LoginRequest login) throws Exception {
+        return mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(login)))
+                .andReturn().getResponse().getStatus();
+    }
+
+    private String balance(String adminToken, Long userId) throws Exception {
+        return mockMvc.perform(get("/api/cards/balance/" + userId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+    }
+
+    private <T> void awaitValue(T expected, CheckedSupplier<T> actual) throws Exception {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        T value = actual.get();
+        while (!expected.equals(value) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+            value = actual.get();
+        }
+        assertEquals(expected, value);
+    }
+
+    @FunctionalInterface
+    private interface CheckedSupplier<T> {
+        T get() throws Exception;
+    }
+}
@@ -1,16 +1,26 @@
 package com.example.bankcards.integration_tests;
 
 import com.example.bankcards.TestDataFactory;
+import com.example.bankcards.dto.TransactionRequest;
 import com.example.bankcards.entity.CreateCardRequest;
+import com.example.bankcards.entity.TransactionType;
+import com.example.bankcards.service.CardNumberHashBackfill;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,6 +34,15 @@ class CardTest extends BaseIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardNumberHashBackfill cardNumberHashBackfill;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @Test
     void shouldCreateCardAsAdmin() throws Exception {
         String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
@@ -151,6 +170,32 @@ class CardTest extends BaseIntegrationTest {
                 .andExpect(content().string("1000.00"));
     }
 
+    @Test
+    void shouldServeCachedBalanceUntilItChanges() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, userId, "4900111122223333", new BigDecimal("100.00"));
+        double hitsBefore = balanceCacheGets("hit");
+        double missesBefore = balanceCacheGets("miss");
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/api/cards/balance/" + userId)
+                            .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk())
+                    .andExpect(content().string("100.00"));
+        }
+
+        TestDataFactory.createTestDeposit(mockMvc, objectMapper, adminToken, cardId, new BigDecimal("25.00"));
+
+        mockMvc.perform(get("/api/cards/balance/" + userId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(content().string("125.00"));
+
+        assertEquals(2, balanceCacheGets("hit") - hitsBefore);
+        assertEquals(2, balanceCacheGets("miss") - missesBefore);
+    }
+
     @Test
     void shouldGetUserBalanceByIdAsAdmin() throws Exception {
         String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
@@ -232,7 +277,7 @@ class CardTest extends BaseIntegrationTest {
     void shouldDeleteCardAsAdmin() throws Exception {
         String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
         Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
-        Long cardId = TestDataFactory.createTestCard(mockMvc, objectMapper, adminToken, userId);
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, userId, "4960111122223333", BigDecimal.ZERO);
 
         mockMvc.perform(delete("/api/cards/" + cardId)
                         .with(csrf())
@@ -244,6 +289,29 @@ class CardTest extends BaseIntegrationTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void shouldKeepCardWithLedgerHistory() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, userId, "4970111122223333", new BigDecimal("50.00"));
+
+        mockMvc.perform(delete("/api/cards/" + cardId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(delete("/api/users/" + userId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(get("/api/cards/id/" + cardId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM ledger_entries WHERE card_id = ?", Integer.class, cardId));
+    }
+
     @Test
     void shouldDenyDeleteCardAsUser() throws Exception {
         String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
@@ -330,4 +398,112 @@ class CardTest extends BaseIntegrationTest {
                 .andExpect(jsonPath("$.content.length()").value(1))
                 .andExpect(jsonPath("$.totalElements").value(2));
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldBackfillCardNumberHash() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createTestCard(mockMvc, objectMapper, adminToken, userId);
+
+        jdbcTemplate.update("UPDATE cards SET card_number_hash = NULL");
+        cardNumberHashBackfill.markIncomplete();
+        assertFalse(cardNumberHashBackfill.isComplete());
+
+        mockMvc.perform(get("/api/cards/number/1234567890123456")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(cardId));
+
+        assertEquals(1, cardNumberHashBackfill.backfill());
+        assertNotNull(jdbcTemplate.queryForObject(
+                "SELECT card_number_hash FROM cards WHERE id = ?", String.class, cardId));
+        assertTrue(cardNumberHashBackfill.isComplete());
+
+        mockMvc.perform(get("/api/cards/number/1234567890123456")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(cardId));
+    }
+
+    @Test
+    void shouldStoreLastFourDigitsAndMaskFromThem() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createTestCard(mockMvc, objectMapper, adminToken, userId);
+
+        assertEquals("3456", jdbcTemplate.queryForObject(
+                "SELECT card_last4 FROM cards WHERE id = ?", String.class, cardId));
+        assertNotEquals("1234567890123456", jdbcTemplate.queryForObject(
+                "SELECT card_number FROM cards WHERE id = ?", String.class, cardId));
+
+        jdbcTemplate.update("UPDATE cards SET card_last4 = NULL");
+        assertEquals(1, cardNumberHashBackfill.backfill());
+        assertEquals("3456", jdbcTemplate.queryForObject(
+                "SELECT card_last4 FROM cards WHERE id = ?", String.class, cardId));
+
+        mockMvc.perform(get("/api/cards/id/" + cardId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maskedCardNumber").value("**** **** **** 3456"));
+    }
+
+    @Test
+    void shouldSpreadCreditsOverBalanceShardsAndConsolidateOnDebit() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, userId, "4800111122223333", new BigDecimal("100.00"));
+
+        mockMvc.perform(post("/api/cards/" + cardId + "/balance-shards?shards=4")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(100.00));
+
+        TransactionRequest deposit = TestDataFactory.createTransactionRequest(new BigDecimal("50.00"), TransactionType.DEPOSIT);
+        for (int i = 0; i < 4; i++) {
+            mockMvc.perform(post("/api/transactions/deposit/" + cardId)
+                            .with(csrf())
+                            .header("Authorization", "Bearer " + adminToken)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(deposit)))
+                    .andExpect(status().isOk());
+        }
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(jdbcTemplate.queryForObject(
+                "SELECT balance FROM cards WHERE id = ?", BigDecimal.class, cardId)));
+
+        mockMvc.perform(get("/api/cards/id/" + cardId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(300.00));
+
+        mockMvc.perform(get("/api/cards/balance/" + userId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(content().string("300.00"));
+
+        mockMvc.perform(get("/api/cards/" + userId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].balance").value(300.00))
+                .andExpect(jsonPath("$.content[0].maskedCardNumber").value("**** **** **** 3333"));
+
+        TransactionRequest withdrawal = TestDataFactory.createTransactionRequest(new BigDecimal("250.00"), TransactionType.WITHDRAW);
+        mockMvc.perform(post("/api/transactions/withdraw/" + cardId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(withdrawal)))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/cards/id/" + cardId)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.balance").value(50.00));
+    }
+
+    private double balanceCacheGets(String result) {
+        return meterRegistry.get("cache.gets").tag("cache", "userBalances").tag("result", result)
+                .functionCounter().count();
+    }
+}
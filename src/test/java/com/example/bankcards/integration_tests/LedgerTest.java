@@ -0,0 +1,123 @@
+package com.example.bankcards.integration_tests;
+
+import com.example.bankcards.TestDataFactory;
+import com.example.bankcards.dto.TransactionRequest;
+import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.entity.TransactionType;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.Ledger;
+import com.example.bankcards.service.LedgerReconciliationJob;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@AutoConfigureMockMvc
+class LedgerTest extends BaseIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private Ledger ledger;
+
+    @Autowired
+    private LedgerReconciliationJob reconciliationJob;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void shouldKeepCardBalancesDerivableFromLedger() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        Long fromCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4600111122223333", new BigDecimal("1000.00"));
+        Long toCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4600444455556666", new BigDecimal("0.00"));
+
+        TransferRequest transfer = TestDataFactory.createTransferRequest(fromCardId, toCardId, new BigDecimal("250.00"));
+        mockMvc.perform(post("/api/transfers")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(transfer)))
+                .andExpect(status().isOk());
+
+        TransactionRequest deposit = TestDataFactory.createTransactionRequest(new BigDecimal("40.00"), TransactionType.DEPOSIT);
+        mockMvc.perform(post("/api/transactions/deposit/" + toCardId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(deposit)))
+                .andExpect(status().isOk());
+
+        for (Long cardId : List.of(fromCardId, toCardId)) {
+            BigDecimal balance = cardRepository.findById(cardId).orElseThrow().getBalance();
+            assertEquals(0, balance.compareTo(ledger.balanceOf(cardId)));
+        }
+        assertEquals(0, new BigDecimal("290.00").compareTo(ledger.balanceOf(toCardId)));
+
+        assertEquals(0, BigDecimal.ZERO.compareTo(jdbcTemplate.queryForObject(
+                "SELECT SUM(CASE direction WHEN 'CREDIT' THEN amount ELSE -amount END) FROM ledger_entries",
+                BigDecimal.class)));
+    }
+
+    @Test
+    void shouldReportCardsWhoseBalanceDriftsFromLedger() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4700111122223333", new BigDecimal("500.00"));
+
+        assertTrue(reconciliationJob.reconcile().isEmpty());
+
+        jdbcTemplate.update("UPDATE cards SET balance = balance + 1 WHERE id = ?", cardId);
+        TransactionRequest deposit = TestDataFactory.createTransactionRequest(new BigDecimal("10.00"), TransactionType.DEPOSIT);
+        mockMvc.perform(post("/api/transactions/deposit/" + cardId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(deposit)))
+                .andExpect(status().isOk());
+
+        assertEquals(List.of(cardId), reconciliationJob.reconcile());
+    }
+
+    @Test
+    void shouldNotBookMoneyWhenCardIsBlockedAndReactivated() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4710111122223333", new BigDecimal("500.00"));
+
+        mockMvc.perform(post("/api/cards/" + cardId + "/admin-block")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+        mockMvc.perform(post("/api/cards/" + cardId + "/activate")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        assertTrue(reconciliationJob.reconcile().isEmpty());
+        BigDecimal balance = cardRepository.findById(cardId).orElseThrow().getBalance();
+        assertEquals(0, balance.compareTo(ledger.balanceOf(cardId)));
+        assertEquals(0, new BigDecimal("500.00").compareTo(ledger.balanceOf(cardId)));
+    }
+}
@@ -0,0 +1,107 @@
+package com.example.bankcards.integration_tests;
+
+import com.example.bankcards.TestDataFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Guards the listing endpoints against N+1 selects: a page must cost the page query plus
+ * at most a count query, no matter how many rows it contains.
+ */
+@AutoConfigureMockMvc
+class ListingQueryCountTest extends BaseIntegrationTest {
+
+    private static final int CARDS = 4;
+    private static final long MAX_STATEMENTS_PER_PAGE = 2;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private String adminToken;
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.setStatisticsEnabled(true);
+
+        adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        Long[] cardIds = new Long[CARDS];
+        for (int i = 0; i < CARDS; i++) {
+            cardIds[i] = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L,
+                    "400000000000000" + i, new BigDecimal("1000.00"));
+        }
+        for (int i = 0; i < CARDS; i++) {
+            TestDataFactory.createTestTransfer(mockMvc, objectMapper, userToken,
+                    cardIds[i], cardIds[(i + 1) % CARDS], new BigDecimal("10.00"));
+            TestDataFactory.createTestDeposit(mockMvc, objectMapper, adminToken, cardIds[i], new BigDecimal("5.00"));
+            TestDataFactory.createTestCardBlock(mockMvc, objectMapper, userToken, cardIds[i]);
+        }
+    }
+
+    @Test
+    void shouldListTransfersWithoutPerRowQueries() throws Exception {
+        assertStatementsPerPage("/api/transfers");
+    }
+
+    @Test
+    void shouldListTransactionsWithoutPerRowQueries() throws Exception {
+        assertStatementsPerPage("/api/transactions");
+    }
+
+    @Test
+    void shouldListCardBlocksWithoutPerRowQueries() throws Exception {
+        assertStatementsPerPage("/api/card-blocks");
+    }
+
+    @Test
+    void shouldSkipCountQueryWithoutTotal() throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(get("/api/transfers")
+                        .param("size", "2")
+                        .param("withTotal", "false")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.last").value(false))
+                .andExpect(jsonPath("$.totalElements").doesNotExist());
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    private void assertStatementsPerPage(String url) throws Exception {
+        statistics.clear();
+
+        mockMvc.perform(get(url)
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.totalElements").value(CARDS));
+
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(MAX_STATEMENTS_PER_PAGE);
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.bankcards.integration_tests;
+
+import com.example.bankcards.entity.BlockRequestStatus;
+import com.example.bankcards.entity.CardStatus;
+import com.example.bankcards.service.CardBlockService;
+import com.example.bankcards.service.CardService;
+import com.example.bankcards.service.TransactionService;
+import com.example.bankcards.service.TransferService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Captures the SQL Hibernate runs for the listing queries built from the *Specifications
+ * filters, runs EXPLAIN on it over a seeded dataset and fails if PostgreSQL has to read
+ * a whole seeded table to answer it.
+ * The captured statements are prepared with their bind markers and explained as generic plans,
+ * so the check does not depend on the order in which Hibernate binds parameters.
+ */
+class QueryPlanTest extends BaseIntegrationTest {
+
+    private static final int USERS = 500;
+    private static final int CARDS_PER_USER = 8;
+    private static final int TRANSACTIONS_PER_CARD = 10;
+    private static final List<String> SEEDED_TABLES = List.of("users", "cards", "card_blocks", "transactions", "transfers");
+    private static final Pattern BIND_MARKER = Pattern.compile("\\?");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private CardService cardService;
+
+    @Autowired
+    private CardBlockService cardBlockService;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private TransferService transferService;
+
+    private Long userId;
+    private Long cardId;
+    private LocalDateTime start;
+    private LocalDateTime end;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("INSERT INTO users (first_name, last_name, email, password, role, created_at) " +
+                "SELECT 'Seed', 'User', 'seed' || g || '@test.com', 'password', 'ROLE_USER', now() " +
+                "FROM generate_series(1, ?) g", USERS);
+        jdbcTemplate.update("INSERT INTO cards (user_id, card_number, expiry_date, balance, status, created_at, updated_at) " +
+                "SELECT u.id, 'seed-' || u.id || '-' || g, current_date + 365, 100, " +
+                "(ARRAY['ACTIVE', 'BLOCKED', 'EXPIRED'])[1 + g % 3], now() - g * interval '1 day', now() " +
+                "FROM users u CROSS JOIN generate_series(1, ?) g WHERE u.role = 'ROLE_USER'", CARDS_PER_USER);
+        jdbcTemplate.update("INSERT INTO card_blocks (card_id, user_id, requested_at, status) " +
+                "SELECT id, user_id, created_at + interval '1 hour', " +
+                "CASE WHEN id % 2 = 0 THEN 'PENDING' ELSE 'APPROVED' END FROM cards");
+        jdbcTemplate.update("INSERT INTO transactions (card_id, transaction_type, amount, created_at) " +
+                "SELECT c.id, CASE WHEN g % 2 = 0 THEN 'DEPOSIT' ELSE 'WITHDRAW' END, 10, c.created_at + g * interval '1 hour' " +
+                "FROM cards c CROSS JOIN generate_series(1, ?) g", TRANSACTIONS_PER_CARD);
+        jdbcTemplate.update("INSERT INTO transfers (from_card_id, to_card_id, from_user_id, to_user_id, amount, status, created_at) " +
+                "SELECT f.id, t.id, f.user_id, t.user_id, 1, 'COMPLETED', f.created_at " +
+                "FROM cards f JOIN cards t ON t.id = f.id + ?", CARDS_PER_USER);
+        jdbcTemplate.execute("ANALYZE users, cards, card_blocks, transactions, transfers");
+
+        userId = jdbcTemplate.queryForObject("SELECT min(id) FROM users WHERE role = 'ROLE_USER'", Long.class);
+        cardId = jdbcTemplate.queryForObject("SELECT min(id) FROM cards WHERE user_id = ?", Long.class, userId);
+        end = LocalDateTime.now();
+        start = end.minusDays(30);
+    }
+
+    @Test
+    void shouldUseIndexForUserCardsByStatusAndDate() {
+        assertNoSeqScan(() -> cardService.getUserCardsByUserId(
+                userId, CardStatus.ACTIVE, start, end, newestFirst("createdAt"), false));
+    }
+
+    @Test
+    void shouldUseIndexForUserCardBlocksByStatusAndDate() {
+        assertNoSeqScan(() -> cardBlockService.getBlockRequestsByUserId(
+                userId, null, BlockRequestStatus.PENDING, start, end, newestFirst("requestedAt"), false));
+    }
+
+    @Test
+    void shouldUseIndexForCardTransactionsByDate() {
+        assertNoSeqScan(() -> transactionService.getAllTransactions(
+                null, cardId, null, start, end, newestFirst("createdAt"), false));
+    }
+
+    @Test
+    void shouldUseIndexForUserTransactionsByDate() {
+        assertNoSeqScan(() -> transactionService.getUserTransactions(
+                userId, null, null, start, end, newestFirst("createdAt"), false));
+    }
+
+    @Test
+    void shouldUseIndexForUserTransfersByDate() {
+        List<String> plans = assertNoSeqScan(() -> transferService.getTransfersByUserId(
+                userId, null, null, start, end, newestFirst("createdAt"), false));
+
+        // Sent and received transfers are each read in created_at order from their own index,
+        // instead of a BitmapOr that has to sort every transfer of the user.
+        assertThat(plans).anySatisfy(plan -> assertThat(plan)
+                .contains("idx_transfers_from_user_id_created_at")
+                .contains("idx_transfers_to_user_id_created_at")
+                .doesNotContain("BitmapOr"));
+    }
+
+    private static Pageable newestFirst(String property) {
+        return PageRequest.of(0, 20, Sort.by(Sort.Direction.DESC, property));
+    }
+
+    private List<String> assertNoSeqScan(Runnable query) {
+        List<String> statements = CapturingStatementInspector.capture(query);
+        assertThat(statements).as("statements executed by the query").isNotEmpty();
+
+        List<String> plans = new ArrayList<>();
+        for (String sql : statements) {
+            String plan = explainGenericPlan(sql);
+            for (String table : SEEDED_TABLES) {
+                assertThat(plan).as(sql + "\n" + plan).doesNotContain("Seq Scan on " + table + " ");
+            }
+            plans.add(plan);
+        }
+        return plans;
+    }
+
+    /**
+     * Explains the statement as PostgreSQL would plan it for any parameter values.
+     */
+    private String explainGenericPlan(String sql) {
+        Matcher matcher = BIND_MARKER.matcher(sql);
+        StringBuilder numbered = new StringBuilder();
+        int parameters = 0;
+        while (matcher.find()) {
+            matcher.appendReplacement(numbered, "\\$" + ++parameters);
+        }
+        matcher.appendTail(numbered);
+        String execute = parameters == 0
+                ? "EXPLAIN EXECUTE captured"
+                : "EXPLAIN EXECUTE captured(" + String.join(", ", Collections.nCopies(parameters, "NULL")) + ")";
+
+        return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SET plan_cache_mode = force_generic_plan");
+                statement.execute("PREPARE captured AS " + numbered);
+                try {
+                    List<String> lines = new ArrayList<>();
+                    try (ResultSet rs = statement.executeQuery(execute)) {
+                        while (rs.next()) {
+                            lines.add(rs.getString(1));
+                        }
+                    }
+                    return String.join("\n", lines);
+                } finally {
+                    statement.execute("DEALLOCATE captured");
+                    statement.execute("RESET plan_cache_mode");
+                }
+            }
+        });
+    }
+}
@@ -3,15 +3,25 @@ package com.example.bankcards.integration_tests;
 import com.example.bankcards.TestDataFactory;
 import com.example.bankcards.dto.TransactionRequest;
 import com.example.bankcards.entity.TransactionType;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.TransactionService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -25,6 +35,15 @@ class TransactionTest extends BaseIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private CardRepository cardRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
     @Test
     void shouldDepositAsAdmin() throws Exception {
         String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
@@ -280,4 +299,153 @@ class TransactionTest extends BaseIntegrationTest {
                         .content(objectMapper.writeValueAsString(request)))
                 .andExpect(status().isBadRequest());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldNotLoseConcurrentDeposits() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createTestCard(mockMvc, objectMapper, adminToken, userId);
+        BigDecimal initialBalance = cardRepository.findById(cardId).orElseThrow().getBalance();
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 16; i++) {
+                futures.add(executor.submit(() -> transactionService.deposit(cardId, new BigDecimal("10.00"))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        BigDecimal expected = initialBalance.add(new BigDecimal("160.00"));
+        assertEquals(0, expected.compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldRejectWithdrawalFromBlockedCard() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createTestCard(mockMvc, objectMapper, adminToken, userId);
+        TransactionRequest request = TestDataFactory.createTransactionRequest(new BigDecimal("10.00"), TransactionType.WITHDRAW);
+
+        mockMvc.perform(post("/api/cards/" + cardId + "/admin-block")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/transactions/withdraw/" + cardId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Card is not active"));
+    }
+
+    @Test
+    void shouldApplyDepositOnceForRepeatedIdempotencyKey() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createTestCard(mockMvc, objectMapper, adminToken, userId);
+        BigDecimal initialBalance = cardRepository.findById(cardId).orElseThrow().getBalance();
+        TransactionRequest request = TestDataFactory.createTransactionRequest(new BigDecimal("25.00"), TransactionType.DEPOSIT);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(post("/api/transactions/deposit/" + cardId)
+                            .with(csrf())
+                            .header("Authorization", "Bearer " + adminToken)
+                            .header("Idempotency-Key", idempotencyKey)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.transactionType").value("DEPOSIT"));
+        }
+
+        BigDecimal expected = initialBalance.add(new BigDecimal("25.00"));
+        assertEquals(0, expected.compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldTakeOverStaleIdempotencyClaimButNotALiveOne() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createTestCard(mockMvc, objectMapper, adminToken, userId);
+        BigDecimal initialBalance = cardRepository.findById(cardId).orElseThrow().getBalance();
+        TransactionRequest request = TestDataFactory.createTransactionRequest(new BigDecimal("25.00"), TransactionType.DEPOSIT);
+        String staleKey = UUID.randomUUID().toString();
+        String liveKey = UUID.randomUUID().toString();
+
+        // Claims left behind by requests that died before their operation committed
+        jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, status, created_at) " +
+                "VALUES (1, ?, 'lost', 'IN_PROGRESS', now() - interval '1 hour')", staleKey);
+        jdbcTemplate.update("INSERT INTO idempotency_keys (user_id, idempotency_key, request_hash, status, created_at) " +
+                "VALUES (1, ?, 'lost', 'IN_PROGRESS', now())", liveKey);
+
+        mockMvc.perform(post("/api/transactions/deposit/" + cardId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("Idempotency-Key", liveKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isConflict());
+
+        mockMvc.perform(post("/api/transactions/deposit/" + cardId)
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + adminToken)
+                        .header("Idempotency-Key", staleKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk());
+
+        assertEquals("COMPLETED", jdbcTemplate.queryForObject(
+                "SELECT status FROM idempotency_keys WHERE idempotency_key = ?", String.class, staleKey));
+        BigDecimal expected = initialBalance.add(new BigDecimal("25.00"));
+        assertEquals(0, expected.compareTo(cardRepository.findById(cardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldPageThroughTransactionsWithCursorAcrossEqualTimestamps() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        Long userId = TestDataFactory.createTestUser(mockMvc, objectMapper, adminToken);
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, userId, "4980111122223333", BigDecimal.ZERO);
+
+        List<Long> transactionIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            transactionIds.add(TestDataFactory.createTestDeposit(mockMvc, objectMapper, adminToken, cardId, new BigDecimal("10.00")));
+        }
+        // The page boundary falls between rows with the same created_at, so only the id tiebreaker separates them
+        jdbcTemplate.update("UPDATE transactions SET created_at = TIMESTAMP '2024-01-01 12:00:00' WHERE card_id = ?", cardId);
+
+        String firstPage = mockMvc.perform(get("/api/transactions/cursor")
+                        .param("cardId", cardId.toString())
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(transactionIds.get(0)))
+                .andExpect(jsonPath("$.content[1].id").value(transactionIds.get(1)))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/transactions/cursor")
+                        .param("cardId", cardId.toString())
+                        .param("size", "2")
+                        .param("cursor", nextCursor)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(transactionIds.get(2)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/transactions/cursor")
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+    }
+}
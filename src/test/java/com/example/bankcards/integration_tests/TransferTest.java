@@ -1,7 +1,10 @@
 package com.example.bankcards.integration_tests;
 
 import com.example.bankcards.TestDataFactory;
+import com.example.bankcards.dto.BatchTransferRequest;
 import com.example.bankcards.dto.TransferRequest;
+import com.example.bankcards.repository.CardRepository;
+import com.example.bankcards.service.TransferEngine;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,7 +13,14 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.math.BigDecimal;
-
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -24,6 +34,12 @@ class TransferTest extends BaseIntegrationTest {
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private TransferEngine transferEngine;
+
+    @Autowired
+    private CardRepository cardRepository;
+
     @Test
     void shouldCreateTransferBetweenOwnCards() throws Exception {
         String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
@@ -84,6 +100,23 @@ class TransferTest extends BaseIntegrationTest {
                 .andExpect(status().isForbidden());
     }
 
+    @Test
+    void shouldReturnNotFoundForTransferToMissingCard() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        Long fromCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "1234123412341234", new BigDecimal("600.00"));
+
+        TransferRequest request = TestDataFactory.createTransferRequest(fromCardId, 999L, new BigDecimal("100.00"));
+
+        mockMvc.perform(post("/api/transfers")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void shouldGetTransferByIdAsOwner() throws Exception {
         String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
@@ -281,4 +314,289 @@ class TransferTest extends BaseIntegrationTest {
                         .header("Authorization", "Bearer " + adminToken))
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldKeepBalancesConsistentUnderOpposingConcurrentTransfers() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+
+        Long firstCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4000111122223333", new BigDecimal("1000.00"));
+        Long secondCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4000444455556666", new BigDecimal("1000.00"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 40; i++) {
+                boolean forward = i % 2 == 0;
+                futures.add(executor.submit(() -> forward
+                        ? transferEngine.transfer(firstCardId, secondCardId, new BigDecimal("10.00"))
+                        : transferEngine.transfer(secondCardId, firstCardId, new BigDecimal("10.00"))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertEquals(0, new BigDecimal("1000.00").compareTo(cardRepository.findById(firstCardId).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("1000.00").compareTo(cardRepository.findById(secondCardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldRejectTransferToSameCard() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        Long cardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4000777788889999", new BigDecimal("1000.00"));
+
+        TransferRequest request = TestDataFactory.createTransferRequest(cardId, cardId, new BigDecimal("10.00"));
+
+        mockMvc.perform(post("/api/transfers")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldApplyBatchTransfersAtomically() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        Long firstCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4100111122223333", new BigDecimal("1000.00"));
+        Long secondCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4100444455556666", new BigDecimal("100.00"));
+
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                TestDataFactory.createTransferRequest(firstCardId, secondCardId, new BigDecimal("300.00")),
+                TestDataFactory.createTransferRequest(secondCardId, firstCardId, new BigDecimal("50.00"))), true);
+
+        mockMvc.perform(post("/api/transfers/batch")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(2))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.results[0].status").value("COMPLETED"))
+                .andExpect(jsonPath("$.results[0].transferId").isNumber());
+
+        assertEquals(0, new BigDecimal("750.00").compareTo(cardRepository.findById(firstCardId).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("350.00").compareTo(cardRepository.findById(secondCardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldRejectWholeAtomicBatchWhenOneTransferFails() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        Long firstCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4200111122223333", new BigDecimal("100.00"));
+        Long secondCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4200444455556666", new BigDecimal("100.00"));
+
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                TestDataFactory.createTransferRequest(firstCardId, secondCardId, new BigDecimal("50.00")),
+                TestDataFactory.createTransferRequest(firstCardId, secondCardId, new BigDecimal("80.00"))), true);
+
+        mockMvc.perform(post("/api/transfers/batch")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
+
+        assertEquals(0, new BigDecimal("100.00").compareTo(cardRepository.findById(firstCardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldReportFailedItemsInNonAtomicBatch() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        Long firstCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4300111122223333", new BigDecimal("100.00"));
+        Long secondCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4300444455556666", new BigDecimal("100.00"));
+
+        BatchTransferRequest request = new BatchTransferRequest(List.of(
+                TestDataFactory.createTransferRequest(firstCardId, secondCardId, new BigDecimal("50.00")),
+                TestDataFactory.createTransferRequest(firstCardId, secondCardId, new BigDecimal("80.00"))), false);
+
+        mockMvc.perform(post("/api/transfers/batch")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.completed").value(1))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[1].error").value("Insufficient funds"));
+
+        assertEquals(0, new BigDecimal("50.00").compareTo(cardRepository.findById(firstCardId).orElseThrow().getBalance()));
+        assertEquals(0, new BigDecimal("150.00").compareTo(cardRepository.findById(secondCardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldReplayTransferWithSameIdempotencyKey() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        Long fromCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4400111122223333", new BigDecimal("1000.00"));
+        Long toCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4400444455556666", new BigDecimal("0.00"));
+
+        TransferRequest request = TestDataFactory.createTransferRequest(fromCardId, toCardId, new BigDecimal("100.00"));
+
+        String firstResponse = mockMvc.perform(post("/api/transfers")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        Long transferId = objectMapper.readTree(firstResponse).get("id").asLong();
+
+        mockMvc.perform(post("/api/transfers")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id").value(transferId));
+
+        assertEquals(0, new BigDecimal("900.00").compareTo(cardRepository.findById(fromCardId).orElseThrow().getBalance()));
+    }
+
+    @Test
+    void shouldRejectIdempotencyKeyReusedForDifferentTransfer() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+        String idempotencyKey = UUID.randomUUID().toString();
+
+        Long fromCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4500111122223333", new BigDecimal("1000.00"));
+        Long toCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4500444455556666", new BigDecimal("0.00"));
+
+        mockMvc.perform(post("/api/transfers")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                TestDataFactory.createTransferRequest(fromCardId, toCardId, new BigDecimal("100.00")))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/transfers")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .header("Idempotency-Key", idempotencyKey)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(
+                                TestDataFactory.createTransferRequest(fromCardId, toCardId, new BigDecimal("200.00")))))
+                .andExpect(status().isConflict());
+    }
+
+    @Test
+    void shouldPageThroughAllTransfersWithCursor() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+        Long fromCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "1234123412341234", new BigDecimal("600.00"));
+        Long toCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "5555444433332222", new BigDecimal("300.00"));
+
+        List<Long> transferIds = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            transferIds.add(TestDataFactory.createTestTransfer(mockMvc, objectMapper, userToken, fromCardId, toCardId, new BigDecimal("10.00")));
+        }
+
+        String firstPage = mockMvc.perform(get("/api/transfers/cursor")
+                        .param("size", "2")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(transferIds.get(0)))
+                .andExpect(jsonPath("$.content[1].id").value(transferIds.get(1)))
+                .andExpect(jsonPath("$.nextCursor").isNotEmpty())
+                .andExpect(jsonPath("$.totalElements").doesNotExist())
+                .andReturn().getResponse().getContentAsString();
+        String nextCursor = objectMapper.readTree(firstPage).get("nextCursor").asText();
+
+        mockMvc.perform(get("/api/transfers/cursor")
+                        .param("size", "2")
+                        .param("cursor", nextCursor)
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(transferIds.get(2)))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+
+        mockMvc.perform(get("/api/transfers/cursor")
+                        .param("cursor", "not-a-cursor")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldListIncomingTransfersFromOtherUsersForBothParticipants() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+        TestDataFactory.UserWithToken sender = TestDataFactory.createUserWithLoginAndId(mockMvc, objectMapper, adminToken, "Sender", "User", "sender@test.com", "password123");
+
+        Long fromCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, sender.userId, "4300111122223333", new BigDecimal("500.00"));
+        Long toCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4300444455556666", new BigDecimal("0.00"));
+
+        Long singleTransferId = transferEngine.transfer(fromCardId, toCardId, new BigDecimal("100.00")).getId();
+        transferEngine.transferBatch(List.of(
+                TestDataFactory.createTransferRequest(fromCardId, toCardId, new BigDecimal("50.00"))), true);
+
+        mockMvc.perform(get("/api/transfers/user/2")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].toCardMasked").value("**** **** **** 6666"));
+
+        mockMvc.perform(get("/api/transfers/user/" + sender.userId)
+                        .header("Authorization", "Bearer " + sender.token))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2));
+
+        mockMvc.perform(get("/api/transfers/" + singleTransferId)
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.fromCardMasked").value("**** **** **** 3333"));
+    }
+
+    @Test
+    void shouldPageThroughSentReceivedAndOwnTransfersNewestFirst() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+        TestDataFactory.UserWithToken other = TestDataFactory.createUserWithLoginAndId(mockMvc, objectMapper, adminToken, "Other", "User", "other@test.com", "password123");
+
+        Long otherCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, other.userId, "4310111122223333", new BigDecimal("500.00"));
+        Long ownCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4310444455556666", new BigDecimal("500.00"));
+        Long savingsCardId = TestDataFactory.createCardWithUniqueNumber(mockMvc, objectMapper, adminToken, 2L, "4310777788889999", new BigDecimal("0.00"));
+
+        Long received = transferEngine.transfer(otherCardId, ownCardId, new BigDecimal("10.00")).getId();
+        Long own = transferEngine.transfer(ownCardId, savingsCardId, new BigDecimal("20.00")).getId();
+        Long sent = transferEngine.transfer(ownCardId, otherCardId, new BigDecimal("30.00")).getId();
+
+        mockMvc.perform(get("/api/transfers/user/2?page=0&size=2&withTotal=false")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(2))
+                .andExpect(jsonPath("$.content[0].id").value(sent))
+                .andExpect(jsonPath("$.content[1].id").value(own))
+                .andExpect(jsonPath("$.last").value(false));
+
+        mockMvc.perform(get("/api/transfers/user/2?page=1&size=2")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content.length()").value(1))
+                .andExpect(jsonPath("$.content[0].id").value(received))
+                .andExpect(jsonPath("$.totalElements").value(3));
+
+        mockMvc.perform(get("/api/transfers/user/2?sort=createdAt,asc&size=1")
+                        .header("Authorization", "Bearer " + userToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].id").value(received));
+    }
+}
@@ -13,6 +13,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.MvcResult;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -151,6 +152,37 @@ class UserTest extends BaseIntegrationTest {
                 .andExpect(status().isOk());
     }
 
+    @Test
+    void shouldServeUsersFromSecondLevelCacheAndRejectOldPasswordAfterChange() throws Exception {
+        String adminToken = TestDataFactory.getAdminToken(mockMvc, objectMapper);
+        String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);
+
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/api/users/2")
+                            .header("Authorization", "Bearer " + adminToken))
+                    .andExpect(status().isOk());
+        }
+
+        mockMvc.perform(get("/actuator/hibernatecache")
+                        .header("Authorization", "Bearer " + adminToken))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.hits").value(greaterThan(0)))
+                .andExpect(jsonPath("$['user-queries']").exists());
+
+        mockMvc.perform(post("/api/users/me/password")
+                        .with(csrf())
+                        .header("Authorization", "Bearer " + userToken)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new ChangePasswordRequest("password123", "newpassword123"))))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(post("/api/auth/login")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new LoginRequest("john@test.com", "password123"))))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void shouldReturnBadRequestForInvalidPasswordChange() throws Exception {
         String userToken = TestDataFactory.getUserToken(mockMvc, objectMapper);